@@ -0,0 +1,99 @@
+package tinkerscript;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Runs a function repeatedly for the bench native. Every iteration is timed
+ * separately with System.nanoTime after a number of untimed warm-up calls.
+ */
+class Benchmark {
+    static final int DEFAULT_WARMUP = 100;
+    static final int DEFAULT_ITERATIONS = 1000;
+
+    static LangMapInstance run(Interpreter interpreter, LangCallable function, Object options) {
+        if (function.arity() > 0) {
+            throw new RuntimeError(null, "Benchmarked function must take no arguments.");
+        }
+        int warmup = DEFAULT_WARMUP;
+        int iterations = DEFAULT_ITERATIONS;
+        if (options != null) {
+            if (!(options instanceof LangMapInstance)) {
+                throw new RuntimeError(null, "Invalid argument type. Expected map.");
+            }
+            warmup = count((LangMapInstance) options, "warmup", warmup, 0);
+            iterations = count((LangMapInstance) options, "iterations", iterations, 1);
+        }
+
+        List<Object> arguments = Collections.emptyList();
+        for (int i = 0; i < warmup; i++) {
+            function.call(interpreter, arguments);
+        }
+        long[] samples = new long[iterations];
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long before = System.nanoTime();
+            function.call(interpreter, arguments);
+            samples[i] = System.nanoTime() - before;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = allocatedBytes();
+
+        Arrays.sort(samples);
+        double total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+        Map<Object, Object> result = new HashMap<>();
+        result.put("iterations", (double) iterations);
+        result.put("mean", total / iterations);
+        result.put("median", percentile(samples, 50));
+        result.put("p99", percentile(samples, 99));
+        result.put("min", (double) samples[0]);
+        result.put("max", (double) samples[iterations - 1]);
+        result.put("opsPerSecond", elapsed == 0 ? Double.POSITIVE_INFINITY : iterations * 1e9 / elapsed);
+        result.put("allocatedBytes", allocatedBefore < 0 || allocatedAfter < 0 ? null
+                : (double) (allocatedAfter - allocatedBefore) / iterations);
+        return new LangMapInstance((LangClass) interpreter.globals.get("Map"), result);
+    }
+
+    private static int count(LangMapInstance options, String key, int defaultValue, int minimum) {
+        if (!options.getKeys().contains(key)) {
+            return defaultValue;
+        }
+        Object value = options.get(null, key);
+        if (!(value instanceof Double) || (double) value != Math.rint((double) value) || (double) value < minimum
+                || (double) value > Integer.MAX_VALUE) {
+            throw new RuntimeError(null, "Invalid option '" + key + "'. Expected integer of at least " + minimum + ".");
+        }
+        return (int) (double) value;
+    }
+
+    // nearest-rank percentile of sorted samples
+    private static double percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return (double) sorted[Math.max(rank, 1) - 1];
+    }
+
+    /*
+     * Bytes allocated by the current thread so far, or -1 when the JVM does
+     * not track it.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,56 @@
+package tinkerscript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * A function passed to a native that calls it once per element. The arity is
+ * checked once up front and a single argument list is reused for every call,
+ * which is safe since functions copy their arguments into a new environment.
+ */
+class Callback {
+    private final Interpreter interpreter;
+    private final LangCallable function;
+    private final List<Object> arguments;
+
+    Callback(Interpreter interpreter, Object function, int arity, String name) {
+        this.interpreter = interpreter;
+        this.function = check(function, arity, name);
+        this.arguments = new ArrayList<>(Arrays.asList(new Object[arity]));
+    }
+
+    /*
+     * Checks that the function can be called with the given number of
+     * arguments. Objects that keep a function to call later keep the result
+     * of this rather than a Callback, and call it on whichever interpreter is
+     * running them, since they may be used from a forked one.
+     */
+    static LangCallable check(Object function, int arity, String name) {
+        if (!(function instanceof LangCallable)) {
+            throw new RuntimeError(null, "Invalid argument type. Expected function.");
+        }
+        LangCallable callable = (LangCallable) function;
+        int expected = callable.arity();
+        if (expected != -1 && expected != arity) {
+            throw new RuntimeError(null,
+                    name + " must take " + arity + (arity == 1 ? " argument." : " arguments."));
+        }
+        return callable;
+    }
+
+    Object call(Object argument) {
+        arguments.set(0, argument);
+        return function.call(interpreter, arguments);
+    }
+
+    Object call(Object first, Object second) {
+        arguments.set(0, first);
+        arguments.set(1, second);
+        return function.call(interpreter, arguments);
+    }
+
+    boolean test(Object argument) {
+        return interpreter.isTruthy(call(argument));
+    }
+}
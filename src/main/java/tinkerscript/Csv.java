@@ -0,0 +1,295 @@
+package tinkerscript;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Streaming CSV support behind the CSV natives. Quoted fields may contain
+ * delimiters, line breaks and doubled quotes. Rows end at \n, \r or \r\n.
+ */
+class Csv {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    static class Options {
+        char delimiter = ',';
+        char quote = '"';
+
+        /*
+         * Reads the optional { "delimiter": ",", "quote": "\"" } map.
+         */
+        static Options from(Object value) {
+            Options options = new Options();
+            if (value == null) {
+                return options;
+            }
+            if (!(value instanceof LangMapInstance)) {
+                throw new RuntimeError(null, "Invalid argument type. Expected map.");
+            }
+            LangMapInstance map = (LangMapInstance) value;
+            options.delimiter = character(map, "delimiter", options.delimiter);
+            options.quote = character(map, "quote", options.quote);
+            return options;
+        }
+
+        private static char character(LangMapInstance map, String key, char defaultValue) {
+            if (!map.getKeys().contains(key)) {
+                return defaultValue;
+            }
+            Object value = map.get(null, key);
+            if (!(value instanceof CharSequence) || ((CharSequence) value).length() != 1) {
+                throw new RuntimeError(null, "Invalid option '" + key + "'. Expected a single character.");
+            }
+            return ((CharSequence) value).charAt(0);
+        }
+    }
+
+    static RowIterator reader(LangClass iteratorClass, LangClass arrayClass, Path path, Options options) {
+        try {
+            return new RowIterator(iteratorClass, arrayClass, Files.newBufferedReader(path, StandardCharsets.UTF_8),
+                    options);
+        } catch (IOException e) {
+            throw FileIO.error(e, path);
+        }
+    }
+
+    static Writer writer(LangClass writerClass, Path path, Options options) {
+        try {
+            return new Writer(writerClass, Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE),
+                    options);
+        } catch (IOException e) {
+            throw FileIO.error(e, path);
+        }
+    }
+
+    /*
+     * Yields one array of strings per row, parsing a chunk of characters at a
+     * time.
+     */
+    static class RowIterator extends LangIterator {
+        private final LangClass arrayClass;
+        private final Reader reader;
+        private final char delimiter;
+        private final char quote;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+        private boolean eof = false;
+        private final StringBuilder field = new StringBuilder();
+        private List<Object> nextRow;
+
+        RowIterator(LangClass klass, LangClass arrayClass, Reader reader, Options options) {
+            super(klass);
+            this.arrayClass = arrayClass;
+            this.reader = reader;
+            this.delimiter = options.delimiter;
+            this.quote = options.quote;
+        }
+
+        private int read() {
+            if (position == limit) {
+                if (eof) {
+                    return -1;
+                }
+                try {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        close();
+                        return -1;
+                    }
+                } catch (IOException e) {
+                    close();
+                    throw new RuntimeError(null, "Error reading CSV file.");
+                }
+            }
+            return buffer[position++];
+        }
+
+        // stops reading and closes the file, after the last row or an error
+        private void close() {
+            eof = true;
+            position = 0;
+            limit = 0;
+            try {
+                reader.close();
+            } catch (IOException e) {
+                // nothing more is read from it either way
+            }
+        }
+
+        private int peek() {
+            int c = read();
+            if (c != -1) {
+                position--;
+            }
+            return c;
+        }
+
+        private List<Object> readRow() {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            List<Object> row = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new RuntimeError(null, "Unterminated quoted field in CSV file.");
+                    }
+                    if (c == quote) {
+                        if (peek() == quote) {
+                            field.append(quote);
+                            read();
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == delimiter) {
+                    row.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c == '\r') {
+                    if (peek() == '\n') {
+                        read();
+                    }
+                    break;
+                } else if (c == quote && field.length() == 0) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            row.add(field.toString());
+            return row;
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            if (nextRow == null) {
+                try {
+                    nextRow = readRow();
+                } catch (RuntimeError error) {
+                    close();
+                    throw error;
+                }
+            }
+            return nextRow != null;
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            if (!hasNext(interpreter)) {
+                throw new RuntimeError(token, "Iterator is exhausted.");
+            }
+            LangArray row = new LangArray(arrayClass, nextRow);
+            nextRow = null;
+            return row;
+        }
+    }
+
+    /*
+     * Instance of the CsvWriter class. Rows are buffered until the writer is
+     * flushed or closed.
+     */
+    static class Writer extends LangInstance {
+        private final BufferedWriter writer;
+        private final char delimiter;
+        private final char quote;
+        private boolean closed = false;
+
+        Writer(LangClass klass, BufferedWriter writer, Options options) {
+            super(klass);
+            this.writer = writer;
+            this.delimiter = options.delimiter;
+            this.quote = options.quote;
+        }
+
+        void writeRow(List<Object> values) {
+            checkOpen();
+            try {
+                for (int i = 0; i < values.size(); i++) {
+                    if (i > 0) {
+                        writer.write(delimiter);
+                    }
+                    writeField(TinkerScript.stringify(values.get(i)));
+                }
+                writer.write('\n');
+            } catch (IOException e) {
+                throw failed();
+            }
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean needsQuotes = false;
+            for (int i = 0; i < value.length() && !needsQuotes; i++) {
+                char c = value.charAt(i);
+                needsQuotes = c == delimiter || c == quote || c == '\n' || c == '\r';
+            }
+            if (!needsQuotes) {
+                writer.write(value);
+                return;
+            }
+            writer.write(quote);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == quote) {
+                    writer.write(quote);
+                }
+                writer.write(c);
+            }
+            writer.write(quote);
+        }
+
+        void flush() {
+            checkOpen();
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw failed();
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new RuntimeError(null, "Error writing CSV file.");
+            }
+        }
+
+        // a write that failed leaves the file incomplete, so the writer is closed
+        private RuntimeError failed() {
+            closed = true;
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // the write has already failed
+            }
+            return new RuntimeError(null, "Error writing CSV file.");
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new RuntimeError(null, "CSV writer is closed.");
+            }
+        }
+    }
+}
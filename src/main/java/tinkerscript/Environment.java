@@ -1,22 +1,88 @@
 package tinkerscript;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+/*
+ * The variables of one scope. The globals are kept in a map; every other scope
+ * holds only a few names, which are kept in arrays and searched linearly, so a
+ * scope can be cleared and reused without allocating.
+ */
 public class Environment {
-    final Environment enclosing;
-    private final Map<String, Object> values = new HashMap<>();
+    private static final String[] NO_NAMES = new String[0];
+    private static final Object[] NO_VALUES = new Object[0];
+
+    Environment enclosing;
+    private final Map<String, Object> values;
+    private String[] names = NO_NAMES;
+    private Object[] slots = NO_VALUES;
+    private int count = 0;
 
     Environment() {
         this.enclosing = null;
+        this.values = new HashMap<>();
     }
 
     Environment(Environment enclosing) {
         this.enclosing = enclosing;
+        this.values = null;
+    }
+
+    // empties the scope so it can be used again inside the given one
+    void reset(Environment enclosing) {
+        Arrays.fill(names, 0, count, null);
+        Arrays.fill(slots, 0, count, null);
+        count = 0;
+        this.enclosing = enclosing;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < count; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean contains(String name) {
+        if (values != null) {
+            return values.containsKey(name);
+        }
+        return indexOf(name) != -1;
+    }
+
+    private Object lookup(String name) {
+        if (values != null) {
+            return values.get(name);
+        }
+        int index = indexOf(name);
+        return index == -1 ? null : slots[index];
+    }
+
+    private void put(String name, Object value) {
+        if (values != null) {
+            values.put(name, value);
+            return;
+        }
+        int index = indexOf(name);
+        if (index != -1) {
+            slots[index] = value;
+            return;
+        }
+        if (count == names.length) {
+            int capacity = Math.max(4, count * 2);
+            names = Arrays.copyOf(names, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        names[count] = name;
+        slots[count] = value;
+        count++;
     }
 
     void define(String name, Object value) {
-        values.put(name, value);
+        put(name, value);
     }
 
     Environment ancestor(int distance) {
@@ -28,7 +94,7 @@ public class Environment {
     }
 
     Object getAt(String name, int distance) {
-        return ancestor(distance).values.get(name);
+        return ancestor(distance).lookup(name);
     }
 
     void assignAt(Token name, Object value, int distance) {
@@ -36,8 +102,8 @@ public class Environment {
     }
 
     Object get(Token name) {
-        if (values.containsKey(name.lexeme)) {
-            return values.get(name.lexeme);
+        if (contains(name.lexeme)) {
+            return lookup(name.lexeme);
         }
         if (enclosing != null)
             return enclosing.get(name);
@@ -45,8 +111,8 @@ public class Environment {
     }
 
     Object get(String name) {
-        if (values.containsKey(name)) {
-            return values.get(name);
+        if (contains(name)) {
+            return lookup(name);
         }
         if (enclosing != null)
             return enclosing.get(name);
@@ -54,8 +120,8 @@ public class Environment {
     }
 
     void assign(Token name, Object value) {
-        if (values.containsKey(name.lexeme)) {
-            values.put(name.lexeme, value);
+        if (contains(name.lexeme)) {
+            put(name.lexeme, value);
             return;
         }
         if (enclosing != null) {
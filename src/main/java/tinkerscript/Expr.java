@@ -379,6 +379,8 @@ abstract class Expr {
         final List<Token> params;
         final Token spread;
         final Expr body;
+        Purity purity;
+        boolean escapes;
 
         <R> R accept(Visitor<R> visitor) {
             return visitor.visitLambdaExpr(this);
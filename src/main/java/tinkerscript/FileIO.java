@@ -0,0 +1,169 @@
+package tinkerscript;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * File operations behind the File natives. Text is always read and written as
+ * UTF-8. Files larger than MAP_THRESHOLD are read through a memory mapping
+ * rather than copied into a byte array first.
+ */
+class FileIO {
+    static final long MAP_THRESHOLD = 1 << 20;
+
+    static Path path(Object path) {
+        if (!(path instanceof CharSequence)) {
+            throw new RuntimeError(null, "Invalid path. Expected string.");
+        }
+        return Paths.get(path.toString());
+    }
+
+    static RuntimeError error(IOException e, Path path) {
+        if (e instanceof NoSuchFileException) {
+            return new RuntimeError(null, "File '" + path + "' not found.");
+        }
+        return new RuntimeError(null, "Could not access file '" + path + "'.");
+    }
+
+    static String readFile(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAP_THRESHOLD) {
+                return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new RuntimeError(null, "File '" + path + "' is too large to be read into a string.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        } catch (IOException e) {
+            throw error(e, path);
+        }
+    }
+
+    static void writeFile(Path path, CharSequence text, boolean append) {
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(text.toString());
+        StandardOpenOption mode = append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                mode)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw error(e, path);
+        }
+    }
+
+    static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            throw error(e, path);
+        }
+    }
+
+    /*
+     * Maps a whole file into memory. Writes to a writable mapping go straight
+     * to the file. A single mapping is limited to 2GB.
+     */
+    static MappedByteBuffer map(Path path, boolean writable) {
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[] {StandardOpenOption.READ};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new RuntimeError(null, "File '" + path + "' is too large to be mapped.");
+            }
+            return channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw error(e, path);
+        }
+    }
+
+    static long copyFile(Path source, Path target) {
+        try (FileChannel from = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel to = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = from.size();
+            long position = 0;
+            while (position < size) {
+                position += from.transferTo(position, size - position, to);
+            }
+            return size;
+        } catch (IOException e) {
+            throw error(e, e instanceof NoSuchFileException && !Files.exists(source) ? source : target);
+        }
+    }
+
+    static LangIterator lines(LangClass klass, Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= Integer.MAX_VALUE) {
+                return new MappedLineIterator(klass, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        } catch (IOException e) {
+            throw error(e, path);
+        }
+        try {
+            return new LangIterator.LineIterator(klass, Files.newBufferedReader(path, StandardCharsets.UTF_8),
+                    true);
+        } catch (IOException e) {
+            throw error(e, path);
+        }
+    }
+
+    /*
+     * Splits a mapped file into lines, decoding each line straight from the
+     * mapping. Lines end at \n, \r or \r\n like BufferedReader.readLine().
+     */
+    static class MappedLineIterator extends LangIterator {
+        private final MappedByteBuffer buffer;
+        private byte[] line = new byte[256];
+
+        MappedLineIterator(LangClass klass, MappedByteBuffer buffer) {
+            super(klass);
+            this.buffer = buffer;
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            return buffer.hasRemaining();
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            if (!hasNext(interpreter)) {
+                throw new RuntimeError(token, "Iterator is exhausted.");
+            }
+            int length = 0;
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    break;
+                }
+                if (b == '\r') {
+                    if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') {
+                        buffer.get();
+                    }
+                    break;
+                }
+                if (length == line.length) {
+                    byte[] grown = new byte[line.length * 2];
+                    System.arraycopy(line, 0, grown, 0, length);
+                    line = grown;
+                }
+                line[length++] = b;
+            }
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
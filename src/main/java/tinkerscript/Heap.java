@@ -0,0 +1,157 @@
+package tinkerscript;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * A binary min-heap of values ordered by a key, behind PriorityQueue and
+ * topK. Keys must be all numbers or all strings; they are compared in Java.
+ * Values with equal keys come out in the order they were pushed.
+ */
+class Heap {
+    private Object[] keys = new Object[16];
+    private Object[] values = new Object[16];
+    // push order, breaks ties between equal keys
+    private long[] order = new long[16];
+    private int size = 0;
+    private long pushed = 0;
+    // decided by the first key
+    private boolean numeric;
+
+    int size() {
+        return size;
+    }
+
+    void push(Object key, Object value) {
+        push(key, value, pushed++);
+    }
+
+    private void push(Object key, Object value, long position) {
+        key = checkKey(key);
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+            order = Arrays.copyOf(order, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        order[size] = position;
+        siftUp(size++);
+    }
+
+    Object peek() {
+        return size == 0 ? null : values[0];
+    }
+
+    Object pop() {
+        Object value = values[0];
+        size--;
+        move(size, 0);
+        keys[size] = null;
+        values[size] = null;
+        if (size > 0) {
+            siftDown(0);
+        }
+        return value;
+    }
+
+    private Object checkKey(Object key) {
+        if (!(key instanceof Double || key instanceof CharSequence)) {
+            throw new RuntimeError(null, "Priority keys must be numbers or strings.");
+        }
+        if (size == 0) {
+            numeric = key instanceof Double;
+        } else if (numeric != key instanceof Double) {
+            throw new RuntimeError(null, "Priority keys must be all numbers or all strings.");
+        }
+        // strings are compared often, so ropes and views are flattened once
+        return numeric ? key : key.toString();
+    }
+
+    private boolean less(int i, int j) {
+        int compared = numeric
+                ? Double.compare((double) keys[i], (double) keys[j])
+                : ((String) keys[i]).compareTo((String) keys[j]);
+        return compared < 0 || (compared == 0 && order[i] < order[j]);
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        values[to] = values[from];
+        order[to] = order[from];
+    }
+
+    private void swap(int i, int j) {
+        Object key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        Object value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        long position = order[i];
+        order[i] = order[j];
+        order[j] = position;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!less(index, parent)) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && less(left, smallest)) {
+                smallest = left;
+            }
+            if (right < size && less(right, smallest)) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    /*
+     * The k elements with the largest keys, largest first; of elements with
+     * equal keys the earlier one wins. Keeps a heap of the best k seen so far
+     * with the worst at the top, so this is O(n log k). Without a key
+     * function the elements are their own keys.
+     */
+    static Object[] topK(List<Object> elements, int k, Callback keyFunction) {
+        Heap best = new Heap();
+        for (int i = 0; i < elements.size() && k > 0; i++) {
+            Object element = elements.get(i);
+            Object key = keyFunction == null ? element : keyFunction.call(element);
+            // later elements sort first among equal keys, so they are dropped first
+            if (best.size < k) {
+                best.push(key, element, -i);
+            } else {
+                key = best.checkKey(key);
+                if (best.numeric
+                        ? (double) key > (double) best.keys[0]
+                        : ((String) key).compareTo((String) best.keys[0]) > 0) {
+                    best.pop();
+                    best.push(key, element, -i);
+                }
+            }
+        }
+        Object[] result = new Object[best.size];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = best.pop();
+        }
+        return result;
+    }
+}
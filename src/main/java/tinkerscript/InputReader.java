@@ -0,0 +1,55 @@
+package tinkerscript;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Standard input of an interpreter. A single buffered reader is shared by all
+ * the reading natives so that data read ahead by one call is not lost for the
+ * next.
+ */
+class InputReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private BufferedReader reader;
+
+    synchronized BufferedReader reader() {
+        if (reader == null) {
+            reader = new BufferedReader(new InputStreamReader(System.in), BUFFER_SIZE);
+        }
+        return reader;
+    }
+
+    String readLine() {
+        try {
+            return reader().readLine();
+        } catch (IOException e) {
+            throw new RuntimeError(null, "Error reading input.");
+        }
+    }
+
+    List<Object> readLines() {
+        List<Object> lines = new ArrayList<>();
+        String line;
+        while ((line = readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    String readAll() {
+        try {
+            StringBuilder builder = new StringBuilder();
+            char[] chunk = new char[BUFFER_SIZE];
+            int read;
+            while ((read = reader().read(chunk)) != -1) {
+                builder.append(chunk, 0, read);
+            }
+            return builder.toString();
+        } catch (IOException e) {
+            throw new RuntimeError(null, "Error reading input.");
+        }
+    }
+}
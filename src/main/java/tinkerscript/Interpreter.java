@@ -36,6 +36,7 @@ import tinkerscript.Stmt.Class;
 import tinkerscript.Stmt.Continue;
 import tinkerscript.Stmt.Expression;
 import tinkerscript.Stmt.For;
+import tinkerscript.Stmt.ForIn;
 import tinkerscript.Stmt.Function;
 import tinkerscript.Stmt.If;
 import tinkerscript.Stmt.Switch;
@@ -45,39 +46,247 @@ import tinkerscript.Stmt.Var;
 import tinkerscript.Stmt.While;
 
 public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
-    final Environment globals = new Environment();
-    private Environment environment = globals;
-    private final Map<Expr, Integer> locals = new HashMap<>();
+    final Environment globals;
+    private Environment environment;
+    private final Map<Expr, Integer> locals;
     public Boolean hadRuntimeError = false;
     private Object lastEvaluated = null;
     private final CompilerMode mode;
+    final OutputBuffer output;
+    final InputReader input;
+    // environments of scopes nothing can capture, kept for reuse once the scope is left
+    private final Environment[] framePool = new Environment[MAX_POOLED_FRAMES];
+    private int pooledFrames = 0;
+    private final boolean reuseFrames;
+    private static final int MAX_POOLED_FRAMES = 1024;
+
+    /*
+     * An interpreter for running functions on another thread. It shares the
+     * globals, resolved variables and console of the parent but has its own
+     * current environment.
+     */
+    private Interpreter(Interpreter parent) {
+        this.mode = parent.mode;
+        this.globals = parent.globals;
+        this.environment = globals;
+        this.locals = parent.locals;
+        this.output = parent.output;
+        this.input = parent.input;
+        this.reuseFrames = parent.reuseFrames;
+    }
+
+    Interpreter fork() {
+        return new Interpreter(this);
+    }
 
     Interpreter(CompilerMode mode) {
         this.mode = mode;
+        this.globals = new Environment();
+        this.environment = globals;
+        this.locals = new HashMap<>();
+        this.output = OutputBuffer.fromSystemProperties();
+        this.input = new InputReader();
+        this.reuseFrames = !"heap".equalsIgnoreCase(System.getProperty("tinkerscript.frames"));
         globals.define("clock", new NativeFunction.Clock());
+        globals.define("clockNanos", new NativeFunction.ClockNanos());
+        globals.define("bench", new NativeFunction.Bench());
+        globals.define("topK", new NativeFunction.TopK());
+        globals.define("memoize", new NativeFunction.Memoize());
+        globals.define("purity", new NativeFunction.PurityOf());
         globals.define("strlen", new NativeFunction.StringLength());
         globals.define("read", new NativeFunction.Input());
+        globals.define("readLines", new NativeFunction.ReadLines());
+        globals.define("readAll", new NativeFunction.ReadAll());
+        globals.define("stdinLines", new NativeFunction.StdinLines());
         globals.define("len", new NativeFunction.ArrayLength());
         globals.define("number", new NativeFunction.ToNumber());
         globals.define("string", new NativeFunction.ToString());
         globals.define("print", new NativeFunction.Print());
         globals.define("println", new NativeFunction.Println());
+        globals.define("range", new NativeFunction.Range());
+        globals.define("flush", new NativeFunction.Flush());
 
 
         // define a base class Object which is superclass of all classes
 
-        LangClass arrayClass = new LangClass("Array", new HashMap<>(
-                Map.of("push", new NativeFunction.ArrayFunction.Push(),
-                        "pop", new NativeFunction.ArrayFunction.Pop())),
-                new HashMap<>(),
-                null);
+        Map<String, LangFunction> arrayMethods = new HashMap<>();
+        arrayMethods.put("push", new NativeFunction.ArrayFunction.Push());
+        arrayMethods.put("pop", new NativeFunction.ArrayFunction.Pop());
+        arrayMethods.put("shift", new NativeFunction.ArrayFunction.Shift());
+        arrayMethods.put("unshift", new NativeFunction.ArrayFunction.Unshift());
+        arrayMethods.put("peekFirst", new NativeFunction.ArrayFunction.PeekFirst());
+        arrayMethods.put("peekLast", new NativeFunction.ArrayFunction.PeekLast());
+        arrayMethods.put("sort", new NativeFunction.ArrayFunction.Sort());
+        arrayMethods.put("sortBy", new NativeFunction.ArrayFunction.SortBy());
+        arrayMethods.put("map", new NativeFunction.ArrayFunction.MapValues());
+        arrayMethods.put("filter", new NativeFunction.ArrayFunction.Filter());
+        arrayMethods.put("reduce", new NativeFunction.ArrayFunction.Reduce());
+        arrayMethods.put("forEach", new NativeFunction.ArrayFunction.ForEach());
+        arrayMethods.put("some", new NativeFunction.ArrayFunction.Some());
+        arrayMethods.put("every", new NativeFunction.ArrayFunction.Every());
+        arrayMethods.put("seq", new NativeFunction.ArrayFunction.Seq());
+        arrayMethods.put("parallelMap", new NativeFunction.ArrayFunction.ParallelMap());
+        arrayMethods.put("parallelFilter", new NativeFunction.ArrayFunction.ParallelFilter());
+        arrayMethods.put("parallelReduce", new NativeFunction.ArrayFunction.ParallelReduce());
+        LangClass arrayClass = new LangClass("Array", arrayMethods, new HashMap<>(), null);
         globals.define("Array", arrayClass);
         LangClass mapClass = new LangClass("Map", new HashMap<>(
                 Map.of("keys", new NativeFunction.MapFunction.Keys(),
-                        "values", new NativeFunction.MapFunction.Values())),
+                        "values", new NativeFunction.MapFunction.Values(),
+                        "keyIterator", new NativeFunction.MapFunction.KeyIterator(),
+                        "valueIterator", new NativeFunction.MapFunction.ValueIterator(),
+                        "entryIterator", new NativeFunction.MapFunction.EntryIterator())),
                 new HashMap<>(),
                 null);
         globals.define("Map", mapClass);
+        LangClass iteratorClass = new LangClass("Iterator", new HashMap<>(
+                Map.of("hasNext", new NativeFunction.IteratorFunction.HasNext(),
+                        "next", new NativeFunction.IteratorFunction.Next())),
+                new HashMap<>(),
+                null);
+        globals.define("Iterator", iteratorClass);
+        LangClass rangeClass = new LangClass("Range", new HashMap<>(
+                Map.of("seq", new NativeFunction.RangeFunction.Seq())),
+                new HashMap<>(),
+                null);
+        globals.define("Range", rangeClass);
+        Map<String, LangFunction> seqMethods = new HashMap<>();
+        seqMethods.put("map", new NativeFunction.SeqFunction.MapValues());
+        seqMethods.put("filter", new NativeFunction.SeqFunction.Filter());
+        seqMethods.put("take", new NativeFunction.SeqFunction.Take());
+        seqMethods.put("toArray", new NativeFunction.SeqFunction.ToArray());
+        seqMethods.put("reduce", new NativeFunction.SeqFunction.Reduce());
+        seqMethods.put("forEach", new NativeFunction.SeqFunction.ForEach());
+        seqMethods.put("some", new NativeFunction.SeqFunction.Some());
+        seqMethods.put("every", new NativeFunction.SeqFunction.Every());
+        seqMethods.put("count", new NativeFunction.SeqFunction.Count());
+        seqMethods.put("first", new NativeFunction.SeqFunction.First());
+        LangClass seqClass = new LangClass("Seq", seqMethods, new HashMap<>(), null);
+        globals.define("Seq", seqClass);
+        LangClass stringBuilderClass = new NativeClass("StringBuilder", new HashMap<>(
+                Map.of("init", new NativeFunction.StringBuilderFunction.Init(),
+                        "append", new NativeFunction.StringBuilderFunction.Append(),
+                        "appendLine", new NativeFunction.StringBuilderFunction.AppendLine(),
+                        "length", new NativeFunction.StringBuilderFunction.Length(),
+                        "clear", new NativeFunction.StringBuilderFunction.Clear(),
+                        "toString", new NativeFunction.StringBuilderFunction.ToString())),
+                new HashMap<>(),
+                LangStringBuilder::new);
+        globals.define("StringBuilder", stringBuilderClass);
+        Map<String, LangFunction> setMethods = new HashMap<>();
+        setMethods.put("init", new NativeFunction.SetFunction.Init());
+        setMethods.put("add", new NativeFunction.SetFunction.Add());
+        setMethods.put("has", new NativeFunction.SetFunction.Has());
+        setMethods.put("remove", new NativeFunction.SetFunction.Remove());
+        setMethods.put("size", new NativeFunction.SetFunction.Size());
+        setMethods.put("clear", new NativeFunction.SetFunction.Clear());
+        setMethods.put("values", new NativeFunction.SetFunction.Values());
+        setMethods.put("union", new NativeFunction.SetFunction.Union());
+        setMethods.put("intersection", new NativeFunction.SetFunction.Intersection());
+        setMethods.put("difference", new NativeFunction.SetFunction.Difference());
+        LangClass setClass = new NativeClass("Set", setMethods, new HashMap<>(), LangSet::new);
+        globals.define("Set", setClass);
+        LangClass priorityQueueClass = new NativeClass("PriorityQueue", new HashMap<>(
+                Map.of("init", new NativeFunction.PriorityQueueFunction.Init(),
+                        "push", new NativeFunction.PriorityQueueFunction.Push(),
+                        "pop", new NativeFunction.PriorityQueueFunction.Pop(),
+                        "peek", new NativeFunction.PriorityQueueFunction.Peek(),
+                        "size", new NativeFunction.PriorityQueueFunction.Size())),
+                new HashMap<>(),
+                LangPriorityQueue::new);
+        globals.define("PriorityQueue", priorityQueueClass);
+        Map<String, LangFunction> bufferMethods = new HashMap<>();
+        bufferMethods.put("init", new NativeFunction.BufferFunction.Init());
+        bufferMethods.put("size", new NativeFunction.BufferFunction.Size());
+        bufferMethods.put("slice", new NativeFunction.BufferFunction.Slice());
+        bufferMethods.put("copyTo", new NativeFunction.BufferFunction.CopyTo());
+        bufferMethods.put("fill", new NativeFunction.BufferFunction.Fill());
+        bufferMethods.put("readString", new NativeFunction.BufferFunction.ReadString());
+        bufferMethods.put("writeString", new NativeFunction.BufferFunction.WriteString());
+        for (LangBuffer.Type type : LangBuffer.Type.values()) {
+            bufferMethods.put("read" + type, new NativeFunction.BufferFunction.Read(type));
+            bufferMethods.put("write" + type, new NativeFunction.BufferFunction.Write(type));
+        }
+        LangClass bufferClass = new NativeClass("Buffer", bufferMethods, new HashMap<>(
+                Map.of("map", new NativeFunction.BufferFunction.MapFile())),
+                LangBuffer::new);
+        globals.define("Buffer", bufferClass);
+        Map<String, LangFunction> vectorMethods = new HashMap<>();
+        vectorMethods.put("init", new NativeFunction.VectorFunction.Init());
+        vectorMethods.put("size", new NativeFunction.VectorFunction.Size());
+        vectorMethods.put("get", new NativeFunction.VectorFunction.Get());
+        vectorMethods.put("set", new NativeFunction.VectorFunction.Set());
+        vectorMethods.put("add", new NativeFunction.VectorFunction.Add());
+        vectorMethods.put("mul", new NativeFunction.VectorFunction.Mul());
+        vectorMethods.put("scale", new NativeFunction.VectorFunction.Scale());
+        vectorMethods.put("axpy", new NativeFunction.VectorFunction.Axpy());
+        vectorMethods.put("dot", new NativeFunction.VectorFunction.Dot());
+        vectorMethods.put("sum", new NativeFunction.VectorFunction.Sum());
+        vectorMethods.put("min", new NativeFunction.VectorFunction.Min());
+        vectorMethods.put("max", new NativeFunction.VectorFunction.Max());
+        vectorMethods.put("toArray", new NativeFunction.VectorFunction.ToArray());
+        LangClass vectorClass = new NativeClass("Vector", vectorMethods, new HashMap<>(), LangVector::new);
+        globals.define("Vector", vectorClass);
+        LangClass memoizedClass = new LangClass("Memoized", new HashMap<>(
+                Map.of("stats", new NativeFunction.MemoizedFunction.Stats(),
+                        "clear", new NativeFunction.MemoizedFunction.Clear())),
+                new HashMap<>(), null);
+        globals.define("Memoized", memoizedClass);
+        LangClass fileClass = new LangClass("File", new HashMap<>(), new HashMap<>(
+                Map.of("readFile", new NativeFunction.FileFunction.ReadFile(),
+                        "writeFile", new NativeFunction.FileFunction.WriteFile(),
+                        "appendFile", new NativeFunction.FileFunction.AppendFile(),
+                        "lines", new NativeFunction.FileFunction.Lines(),
+                        "size", new NativeFunction.FileFunction.Size(),
+                        "copyFile", new NativeFunction.FileFunction.CopyFile())),
+                null);
+        globals.define("File", fileClass);
+        LangClass csvClass = new LangClass("CSV", new HashMap<>(), new HashMap<>(
+                Map.of("reader", new NativeFunction.CsvFunction.Reader(),
+                        "writer", new NativeFunction.CsvFunction.Writer())),
+                null);
+        globals.define("CSV", csvClass);
+        LangClass csvWriterClass = new LangClass("CsvWriter", new HashMap<>(
+                Map.of("writeRow", new NativeFunction.CsvFunction.WriteRow(),
+                        "flush", new NativeFunction.CsvFunction.Flush(),
+                        "close", new NativeFunction.CsvFunction.Close())),
+                new HashMap<>(),
+                null);
+        globals.define("CsvWriter", csvWriterClass);
+        LangClass jsonClass = new LangClass("JSON", new HashMap<>(), new HashMap<>(
+                Map.of("parse", new NativeFunction.JsonFunction.Parse(),
+                        "stringify", new NativeFunction.JsonFunction.Stringify(),
+                        "stream", new NativeFunction.JsonFunction.Stream())),
+                null);
+        globals.define("JSON", jsonClass);
+        LangClass regexClass = new LangClass("Regex", new HashMap<>(), new HashMap<>(
+                Map.of("match", new NativeFunction.RegexFunction.Match(),
+                        "matchAll", new NativeFunction.RegexFunction.MatchAll(),
+                        "replace", new NativeFunction.RegexFunction.Replace(),
+                        "split", new NativeFunction.RegexFunction.Split())),
+                null);
+        globals.define("Regex", regexClass);
+        Map<String, LangFunction> stringMethods = new HashMap<>();
+        stringMethods.put("indexOf", new NativeFunction.StringFunction.IndexOf());
+        stringMethods.put("lastIndexOf", new NativeFunction.StringFunction.LastIndexOf());
+        stringMethods.put("split", new NativeFunction.StringFunction.Split());
+        stringMethods.put("join", new NativeFunction.StringFunction.Join());
+        stringMethods.put("trim", new NativeFunction.StringFunction.Trim());
+        stringMethods.put("startsWith", new NativeFunction.StringFunction.StartsWith());
+        stringMethods.put("endsWith", new NativeFunction.StringFunction.EndsWith());
+        stringMethods.put("charCodeAt", new NativeFunction.StringFunction.CharCodeAt());
+        stringMethods.put("fromCharCode", new NativeFunction.StringFunction.FromCharCode());
+        stringMethods.put("repeat", new NativeFunction.StringFunction.Repeat());
+        LangClass stringClass = new LangClass("String", new HashMap<>(), stringMethods, null);
+        globals.define("String", stringClass);
+        LangClass matchClass = new LangClass("Match", new HashMap<>(
+                Map.of("group", new NativeFunction.MatchFunction.Group(),
+                        "groups", new NativeFunction.MatchFunction.Groups(),
+                        "start", new NativeFunction.MatchFunction.Start(),
+                        "end", new NativeFunction.MatchFunction.End())),
+                new HashMap<>(),
+                null);
+        globals.define("Match", matchClass);
         LangClass error = new LangClass("Error", new HashMap<>(
                 Map.of("init", new NativeFunction.Error.ErrorConstructor())), new HashMap<>(), null);
         globals.define("Error", error);
@@ -101,6 +310,28 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         locals.put(expression, depth);
     }
 
+    /*
+     * What the resolver found a user function or lambda can do when called.
+     * Anything else, including native functions, counts as effectful.
+     */
+    Purity purityOf(Object callable) {
+        Purity purity = null;
+        if (callable instanceof UserFunction) {
+            purity = ((UserFunction) callable).declaration.purity;
+        } else if (callable instanceof LambdaFunction) {
+            purity = ((LambdaFunction) callable).lambda.purity;
+        }
+        return purity == null ? Purity.EFFECTFUL : purity;
+    }
+
+    /*
+     * Whether a callback can be run on several threads at once. Only functions
+     * with no effects outside themselves qualify.
+     */
+    boolean isParallelSafe(Object callable) {
+        return purityOf(callable) != Purity.EFFECTFUL;
+    }
+
     void interpret(List<Stmt> statements) {
         lastEvaluated = null;
         try {
@@ -108,10 +339,13 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
                 execute(stmt);
             }
             if (lastEvaluated != null && mode == CompilerMode.REPL)
-                System.out.println(TinkerScript.stringify(lastEvaluated));
+                output.println(List.of(lastEvaluated));
         } catch (RuntimeError error) {
             hadRuntimeError = true;
+            output.flush();
             Compiler.runtimeError(error);
+        } finally {
+            output.flush();
         }
     }
 
@@ -203,8 +437,8 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
                 if (leftVal instanceof Double && rightVal instanceof Double) {
                     return (double) leftVal + (double) rightVal;
                 }
-                if (leftVal instanceof String && rightVal instanceof String) {
-                    return (String) leftVal + (String) rightVal;
+                if (leftVal instanceof CharSequence && rightVal instanceof CharSequence) {
+                    return Rope.concat((CharSequence) leftVal, (CharSequence) rightVal);
                 }
                 throw new RuntimeError(expr.operator, "Operands must be two numbers or two strings.");
             default:
@@ -245,7 +479,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     }
 
-    private boolean isTruthy(Object object) {
+    boolean isTruthy(Object object) {
         if (object == null)
             return false;
         if (object instanceof Boolean)
@@ -258,6 +492,9 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             return true;
         if (a == null)
             return false;
+        if (a instanceof CharSequence && b instanceof CharSequence) {
+            return a.toString().equals(b.toString());
+        }
         return a.equals(b);
     }
 
@@ -330,10 +567,39 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitBlockStmt(Block stmt) {
-        executeBlock(stmt.statements, new Environment(environment));
+        Environment scope = newFrame(environment, stmt.escapes);
+        try {
+            executeBlock(stmt.statements, scope);
+        } finally {
+            releaseFrame(scope, stmt.escapes);
+        }
         return null;
     }
 
+    /*
+     * An environment for a scope inside the given one. Scopes the resolver
+     * found no function, lambda or class can capture take a used environment
+     * from the pool instead of allocating one, and must be released with the
+     * same escapes flag when left. Each interpreter has its own pool, so
+     * forked interpreters never share frames.
+     */
+    Environment newFrame(Environment enclosing, boolean escapes) {
+        if (escapes || !reuseFrames || pooledFrames == 0) {
+            return new Environment(enclosing);
+        }
+        Environment frame = framePool[--pooledFrames];
+        framePool[pooledFrames] = null;
+        frame.reset(enclosing);
+        return frame;
+    }
+
+    void releaseFrame(Environment frame, boolean escapes) {
+        if (!escapes && reuseFrames && pooledFrames < MAX_POOLED_FRAMES) {
+            frame.reset(null);
+            framePool[pooledFrames++] = frame;
+        }
+    }
+
     void executeBlock(List<Stmt> statements, Environment environment) {
         Environment previous = this.environment;
         try {
@@ -545,20 +811,25 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visitKeyAccessExpr(KeyAccess expr) {
         Object object = evaluate(expr.object);
         Object key = evaluate(expr.key);
-        if (object instanceof LangArray || object instanceof String) {
+        if (object instanceof LangArray || object instanceof LangRange || object instanceof CharSequence) {
             return arrayAccess(expr.rightSqParen, object, key);
         }
         if (object instanceof LangMapInstance) {
-            checkMapKey(key);
+            key = checkMapKey(key);
             return ((LangMapInstance) object).get(expr.rightSqParen, key);
         }
         throw new RuntimeError(expr.rightSqParen, "Incorrect usage of [].");
     }
 
-    private void checkMapKey(Object key) {
+    /*
+     * Validates a map key and returns the form it is stored under.
+     */
+    static Object checkMapKey(Object key) {
+        key = Rope.flatten(key);
         if (!(key instanceof String || key instanceof Double || key instanceof Boolean)) {
             throw new RuntimeError(null, "Invalid key " + TinkerScript.stringify(key) + ".");
         }
+        return key;
     }
 
     private Object arrayAccess(Token token, Object object, Object key) {
@@ -571,11 +842,15 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         if ((object instanceof LangArray)) {
             return ((LangArray) object).get(token, index);
         }
-        if (object instanceof String) {
-            if (index >= ((String) object).length()) {
+        if (object instanceof LangRange) {
+            return ((LangRange) object).get(token, index);
+        }
+        if (object instanceof CharSequence) {
+            CharSequence text = (CharSequence) object;
+            if (index >= text.length()) {
                 throw new RuntimeError(token, "Index " + index + " out of range.");
             }
-            return String.valueOf(((String) object).charAt(index));
+            return Strings.character(text.charAt(index));
         }
         throw new RuntimeError(token, "Invalid key.");
     }
@@ -598,8 +873,11 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         if ((object instanceof LangArray)) {
             return ((LangArray) object).getSlice(token, startIndex, endIndex);
         }
-        if (object instanceof String) {
-            String str = (String) object;
+        if (object instanceof LangRange) {
+            return ((LangRange) object).getSlice(token, startIndex, endIndex);
+        }
+        if (object instanceof CharSequence) {
+            CharSequence str = (CharSequence) object;
             if (startIndex >= str.length()) {
                 throw new RuntimeError(token, "Index " + startIndex + " out of range.");
             }
@@ -609,9 +887,9 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             if (startIndex > endIndex) {
                 startIndex = endIndex;
             }
-            return str.substring(startIndex, endIndex);
+            return StringView.of(str, startIndex, endIndex);
         }
-        throw new RuntimeError(token, "Slicing only supported on arrays and strings.");
+        throw new RuntimeError(token, "Slicing only supported on arrays, ranges and strings.");
     }
 
     @Override
@@ -619,7 +897,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         Object object = evaluate(expr.object);
         Object key = evaluate(expr.key);
         Object value = evaluate(expr.value);
-        if (object instanceof LangArray || object instanceof String) {
+        if (object instanceof LangArray || object instanceof CharSequence) {
             if (!checkInteger(key)) {
                 throw new RuntimeError(expr.equals, "Invalid index.");
             }
@@ -628,12 +906,12 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
                 ((LangArray) object).set(expr.equals, index, value);
                 return value;
             }
-            if (object instanceof String) {
+            if (object instanceof CharSequence) {
                 throw new RuntimeError(expr.equals, "Strings are immutable");
             }
         }
         if (object instanceof LangMapInstance) {
-            checkMapKey(key);
+            key = checkMapKey(key);
             ((LangMapInstance) object).set(expr.equals, key, value);
             return value;
         }
@@ -660,8 +938,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visitDictionaryExpr(Dictionary expr) {
         List<Object> keys = new ArrayList<>();
         for (Expr key : expr.keys) {
-            Object keyObject = evaluate(key);
-            checkMapKey(keyObject);
+            Object keyObject = checkMapKey(evaluate(key));
             keys.add(keyObject);
         }
         List<Object> values = new ArrayList<>();
@@ -721,8 +998,9 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Void visitForStmt(For stmt) {
         Environment previous = environment;
+        Environment scope = newFrame(environment, stmt.escapes);
         try {
-            environment = new Environment(environment);
+            environment = scope;
             if (stmt.initializer != null) {
                 execute(stmt.initializer);
             }
@@ -743,10 +1021,105 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             }
         } finally {
             environment = previous;
+            releaseFrame(scope, stmt.escapes);
         }
         return null;
     }
 
+    @Override
+    public Void visitForInStmt(ForIn stmt) {
+        Object iterable = evaluate(stmt.iterable);
+        Environment previous = environment;
+        Environment scope = newFrame(environment, stmt.escapes);
+        try {
+            environment = scope;
+            if (iterable instanceof LangArray) {
+                // arrays are walked directly, without going through an iterator
+                List<Object> elements = ((LangArray) iterable).elements;
+                for (int i = 0; i < elements.size(); i++) {
+                    environment.define(stmt.name.lexeme, elements.get(i));
+                    if (!executeLoopBody(stmt.body)) {
+                        break;
+                    }
+                }
+            } else if (iterable instanceof LangRange) {
+                LangRange range = (LangRange) iterable;
+                for (long i = 0; i < range.size; i++) {
+                    environment.define(stmt.name.lexeme, range.valueAt(i));
+                    if (!executeLoopBody(stmt.body)) {
+                        break;
+                    }
+                }
+            } else {
+                LangIterator iterator = iterator(stmt.keyword, iterable);
+                while (iterator.hasNext(this)) {
+                    environment.define(stmt.name.lexeme, iterator.next(this, stmt.keyword));
+                    if (!executeLoopBody(stmt.body)) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            environment = previous;
+            releaseFrame(scope, stmt.escapes);
+        }
+        return null;
+    }
+
+    /*
+     * Executes one iteration of a loop body, returns false if the loop has to
+     * be terminated.
+     */
+    private boolean executeLoopBody(Stmt body) {
+        try {
+            execute(body);
+        } catch (BreakOut breakOut) {
+            return false;
+        } catch (ContinueHere continueHere) {
+            return true;
+        }
+        return true;
+    }
+
+    LangIterator iterator(Token token, Object iterable) {
+        LangClass iteratorClass = (LangClass) globals.get("Iterator");
+        if (iterable instanceof LangIterator) {
+            return (LangIterator) iterable;
+        }
+        if (iterable instanceof LangArray) {
+            return new LangIterator.ArrayIterator(iteratorClass, ((LangArray) iterable).elements);
+        }
+        if (iterable instanceof LangRange) {
+            return new LangIterator.RangeIterator(iteratorClass, (LangRange) iterable);
+        }
+        if (iterable instanceof LangMapInstance) {
+            return ((LangMapInstance) iterable).keyIterator(iteratorClass);
+        }
+        if (iterable instanceof LangSet) {
+            return ((LangSet) iterable).iterator(iteratorClass);
+        }
+        if (iterable instanceof CharSequence) {
+            return new LangIterator.StringIterator(iteratorClass, (CharSequence) iterable);
+        }
+        if (iterable instanceof LangInstance) {
+            LangInstance instance = (LangInstance) iterable;
+            LangFunction method = instance.findMethod("iterator");
+            if (method != null) {
+                Object result = method.call(this, new ArrayList<>());
+                if (result instanceof LangIterator) {
+                    return (LangIterator) result;
+                }
+                if (result instanceof LangInstance) {
+                    instance = (LangInstance) result;
+                }
+            }
+            if (instance.findMethod("hasNext") != null && instance.findMethod("next") != null) {
+                return new LangIterator.InstanceIterator(iteratorClass, instance);
+            }
+        }
+        throw new RuntimeError(token, "Value is not iterable.");
+    }
+
     @Override
     public Object visitFunctionExpr(tinkerscript.Expr.Function expr) {
         Environment current = environment;
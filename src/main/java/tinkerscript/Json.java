@@ -0,0 +1,604 @@
+package tinkerscript;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * JSON support behind the JSON natives. Objects become maps, arrays become
+ * arrays, numbers become doubles and null becomes nil.
+ */
+class Json {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_DEPTH = 512;
+
+    static Object parse(Interpreter interpreter, CharSequence text) {
+        Parser parser = new Parser(interpreter, text.toString());
+        Object value = parser.parseValue(0);
+        parser.skipWhitespace();
+        if (parser.peek() != -1) {
+            throw parser.error("Unexpected trailing content.");
+        }
+        return value;
+    }
+
+    static StreamIterator stream(Interpreter interpreter, Path path) {
+        try {
+            Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+            LangClass iteratorClass = (LangClass) interpreter.globals.get("Iterator");
+            return new StreamIterator(iteratorClass, new Parser(interpreter, reader));
+        } catch (IOException e) {
+            throw FileIO.error(e, path);
+        }
+    }
+
+    static String stringify(Object value, int indent) {
+        Writer writer = new Writer(indent);
+        writer.write(value, 0);
+        return writer.buffer.toString();
+    }
+
+    /*
+     * Recursive descent parser over a window of characters. Text is parsed in
+     * place; a reader, when given, refills the window as it is consumed.
+     */
+    private static class Parser {
+        private final LangClass arrayClass;
+        private final LangClass mapClass;
+        private final Reader reader;
+        private boolean eof = false;
+        private char[] buffer;
+        private int position = 0;
+        private int limit;
+        // characters consumed before the current window, for error positions
+        private long offset = 0;
+        private final StringBuilder scratch = new StringBuilder();
+
+        Parser(Interpreter interpreter, String text) {
+            this.arrayClass = (LangClass) interpreter.globals.get("Array");
+            this.mapClass = (LangClass) interpreter.globals.get("Map");
+            this.reader = null;
+            this.buffer = text.toCharArray();
+            this.limit = buffer.length;
+        }
+
+        Parser(Interpreter interpreter, Reader reader) {
+            this.arrayClass = (LangClass) interpreter.globals.get("Array");
+            this.mapClass = (LangClass) interpreter.globals.get("Map");
+            this.reader = reader;
+            this.buffer = new char[BUFFER_SIZE];
+            this.limit = 0;
+        }
+
+        RuntimeError error(String message) {
+            return new RuntimeError(null, "Invalid JSON at position " + (offset + position) + ". " + message);
+        }
+
+        private boolean fill() {
+            if (reader == null || eof) {
+                return false;
+            }
+            try {
+                offset += limit;
+                position = 0;
+                limit = Math.max(reader.read(buffer), 0);
+                if (limit == 0) {
+                    close();
+                }
+                return limit > 0;
+            } catch (IOException e) {
+                close();
+                throw new RuntimeError(null, "Error reading JSON file.");
+            }
+        }
+
+        // stops reading and closes the file, at the end of input or after an error
+        void close() {
+            if (reader == null || eof) {
+                return;
+            }
+            eof = true;
+            position = 0;
+            limit = 0;
+            try {
+                reader.close();
+            } catch (IOException e) {
+                // nothing more is read from it either way
+            }
+        }
+
+        int peek() {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position];
+        }
+
+        private int read() {
+            int c = peek();
+            if (c != -1) {
+                position++;
+            }
+            return c;
+        }
+
+        void skipWhitespace() {
+            while (true) {
+                int c = peek();
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        void expect(char expected) {
+            skipWhitespace();
+            if (peek() != expected) {
+                throw error("Expected '" + expected + "'.");
+            }
+            position++;
+        }
+
+        Object parseValue(int depth) {
+            skipWhitespace();
+            int c = peek();
+            switch (c) {
+                case '{':
+                    return parseObject(depth + 1);
+                case '[':
+                    return parseArray(depth + 1);
+                case '"':
+                    position++;
+                    return parseString();
+                case 't':
+                    parseLiteral("true");
+                    return true;
+                case 'f':
+                    parseLiteral("false");
+                    return false;
+                case 'n':
+                    parseLiteral("null");
+                    return null;
+                case -1:
+                    throw error("Unexpected end of input.");
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        return parseNumber();
+                    }
+                    throw error("Unexpected character '" + (char) c + "'.");
+            }
+        }
+
+        private Object parseObject(int depth) {
+            checkDepth(depth);
+            position++;
+            LangMapInstance map = new LangMapInstance(mapClass, Map.of());
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return map;
+            }
+            while (true) {
+                expect('"');
+                String key = parseString();
+                expect(':');
+                map.set(null, key, parseValue(depth));
+                skipWhitespace();
+                int c = peek();
+                if (c != ',' && c != '}') {
+                    throw error("Expected ',' or '}'.");
+                }
+                position++;
+                if (c == '}') {
+                    return map;
+                }
+            }
+        }
+
+        private Object parseArray(int depth) {
+            checkDepth(depth);
+            position++;
+            LangArray array = new LangArray(arrayClass, List.of());
+            skipWhitespace();
+            if (peek() == ']') {
+                position++;
+                return array;
+            }
+            while (true) {
+                array.elements.add(parseValue(depth));
+                skipWhitespace();
+                int c = peek();
+                if (c != ',' && c != ']') {
+                    throw error("Expected ',' or ']'.");
+                }
+                position++;
+                if (c == ']') {
+                    return array;
+                }
+            }
+        }
+
+        private void checkDepth(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw error("Nesting is too deep.");
+            }
+        }
+
+        /*
+         * Called after the opening quote. Strings without escapes that lie
+         * within the current window are copied out in one go.
+         */
+        private String parseString() {
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"') {
+                    position++;
+                    return new String(buffer, start, position - start - 1);
+                }
+                if (c == '\\' || c < 0x20) {
+                    break;
+                }
+                position++;
+            }
+            scratch.setLength(0);
+            scratch.append(buffer, start, position - start);
+            while (true) {
+                int c = read();
+                if (c == '"') {
+                    return scratch.toString();
+                }
+                if (c == -1) {
+                    throw error("Unterminated string.");
+                }
+                if (c < 0x20) {
+                    position--;
+                    throw error("Unescaped control character in string.");
+                }
+                if (c == '\\') {
+                    scratch.append(parseEscape());
+                } else {
+                    scratch.append((char) c);
+                }
+            }
+        }
+
+        private char parseEscape() {
+            int c = read();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    return (char) c;
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0) {
+                            throw error("Invalid unicode escape.");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    return (char) code;
+                default:
+                    throw error("Invalid escape sequence.");
+            }
+        }
+
+        private void parseLiteral(String literal) {
+            for (int i = 0; i < literal.length(); i++) {
+                if (read() != literal.charAt(i)) {
+                    throw error("Unexpected character.");
+                }
+            }
+        }
+
+        /*
+         * Integers of up to 15 digits are accumulated directly, anything else
+         * goes through Double.parseDouble.
+         */
+        private double parseNumber() {
+            scratch.setLength(0);
+            boolean negative = consumeIf('-');
+            long integer = 0;
+            int digits = consumeDigits();
+            if (digits == 0) {
+                throw error("Expected digit.");
+            }
+            if (scratch.charAt(negative ? 1 : 0) == '0' && digits > 1) {
+                throw error("Leading zeros are not allowed.");
+            }
+            boolean integral = true;
+            if (consumeIf('.')) {
+                integral = false;
+                if (consumeDigits() == 0) {
+                    throw error("Expected digit.");
+                }
+            }
+            if (consumeIf('e') || consumeIf('E')) {
+                integral = false;
+                if (!consumeIf('+')) {
+                    consumeIf('-');
+                }
+                if (consumeDigits() == 0) {
+                    throw error("Expected digit.");
+                }
+            }
+            if (integral && digits <= 15) {
+                for (int i = negative ? 1 : 0; i < scratch.length(); i++) {
+                    integer = integer * 10 + (scratch.charAt(i) - '0');
+                }
+                return negative ? (integer == 0 ? -0.0 : -integer) : integer;
+            }
+            return Double.parseDouble(scratch.toString());
+        }
+
+        private boolean consumeIf(char c) {
+            if (peek() == c) {
+                scratch.append(c);
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private int consumeDigits() {
+            int count = 0;
+            int c;
+            while ((c = peek()) >= '0' && c <= '9') {
+                scratch.append((char) c);
+                position++;
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /*
+     * Yields the elements of a top-level array one at a time, or, when the
+     * document is not an array, each top-level value in turn (as in
+     * newline-delimited JSON). Only the current element is held in memory.
+     */
+    static class StreamIterator extends LangIterator {
+        private final Parser parser;
+        private boolean started = false;
+        private boolean inArray = false;
+        private boolean done = false;
+
+        StreamIterator(LangClass klass, Parser parser) {
+            super(klass);
+            this.parser = parser;
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            if (done) {
+                return false;
+            }
+            try {
+                return advance();
+            } catch (RuntimeError error) {
+                stop();
+                throw error;
+            }
+        }
+
+        private boolean advance() {
+            parser.skipWhitespace();
+            if (!started) {
+                started = true;
+                if (parser.peek() == '[') {
+                    inArray = true;
+                    parser.read();
+                    parser.skipWhitespace();
+                    if (parser.peek() == ']') {
+                        parser.read();
+                        finish();
+                    }
+                }
+            }
+            if (!done && !inArray && parser.peek() == -1) {
+                done = true;
+            }
+            return !done;
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            if (!hasNext(interpreter)) {
+                throw new RuntimeError(token, "Iterator is exhausted.");
+            }
+            try {
+                Object value = parser.parseValue(0);
+                if (inArray) {
+                    parser.skipWhitespace();
+                    int c = parser.peek();
+                    if (c != ',' && c != ']') {
+                        throw parser.error("Expected ',' or ']'.");
+                    }
+                    parser.read();
+                    if (c == ']') {
+                        finish();
+                    }
+                }
+                return value;
+            } catch (RuntimeError error) {
+                stop();
+                throw error;
+            }
+        }
+
+        // a malformed document ends the stream and releases the file
+        private void stop() {
+            done = true;
+            parser.close();
+        }
+
+        private void finish() {
+            done = true;
+            parser.skipWhitespace();
+            if (parser.peek() != -1) {
+                throw parser.error("Unexpected trailing content.");
+            }
+        }
+    }
+
+    private static class Writer {
+        private final TextBuffer buffer = new TextBuffer(256);
+        private final int indent;
+        // containers being written, to reject cycles
+        private final Map<Object, Boolean> open = new IdentityHashMap<>();
+
+        Writer(int indent) {
+            this.indent = indent;
+        }
+
+        void write(Object value, int depth) {
+            if (value == null) {
+                buffer.append("null");
+            } else if (value instanceof Boolean) {
+                buffer.append(value.toString());
+            } else if (value instanceof Double) {
+                double number = (double) value;
+                if (Double.isNaN(number) || Double.isInfinite(number)) {
+                    buffer.append("null");
+                } else {
+                    buffer.appendNumber(number);
+                }
+            } else if (value instanceof CharSequence) {
+                writeString((CharSequence) value);
+            } else if (value instanceof LangArray) {
+                enter(value);
+                List<Object> elements = ((LangArray) value).elements;
+                buffer.append('[');
+                for (int i = 0; i < elements.size(); i++) {
+                    if (i > 0) {
+                        buffer.append(',');
+                    }
+                    newline(depth + 1);
+                    write(elements.get(i), depth + 1);
+                }
+                if (!elements.isEmpty()) {
+                    newline(depth);
+                }
+                buffer.append(']');
+                open.remove(value);
+            } else if (value instanceof LangRange) {
+                LangRange range = (LangRange) value;
+                buffer.append('[');
+                for (long i = 0; i < range.size; i++) {
+                    if (i > 0) {
+                        buffer.append(',');
+                    }
+                    newline(depth + 1);
+                    buffer.appendNumber(range.valueAt(i));
+                }
+                if (range.size > 0) {
+                    newline(depth);
+                }
+                buffer.append(']');
+            } else if (value instanceof LangMapInstance) {
+                enter(value);
+                LangMapInstance map = (LangMapInstance) value;
+                buffer.append('{');
+                boolean first = true;
+                for (Object key : map.getKeys()) {
+                    if (!first) {
+                        buffer.append(',');
+                    }
+                    first = false;
+                    newline(depth + 1);
+                    writeString(key instanceof CharSequence ? (CharSequence) key : TinkerScript.stringify(key));
+                    buffer.append(':');
+                    if (indent > 0) {
+                        buffer.append(' ');
+                    }
+                    write(map.get(null, key), depth + 1);
+                }
+                if (!first) {
+                    newline(depth);
+                }
+                buffer.append('}');
+                open.remove(value);
+            } else {
+                throw new RuntimeError(null, "Cannot convert " + TinkerScript.stringify(value) + " to JSON.");
+            }
+        }
+
+        private void enter(Object container) {
+            if (open.put(container, Boolean.TRUE) != null) {
+                throw new RuntimeError(null, "Cannot convert a value that contains itself to JSON.");
+            }
+        }
+
+        private void newline(int depth) {
+            if (indent == 0) {
+                return;
+            }
+            buffer.append('\n');
+            for (int i = 0; i < depth * indent; i++) {
+                buffer.append(' ');
+            }
+        }
+
+        private void writeString(CharSequence text) {
+            if (text instanceof Rope) {
+                text = text.toString();
+            }
+            buffer.append('"');
+            int length = text.length();
+            int plainStart = 0;
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c != '"' && c != '\\' && c >= 0x20) {
+                    continue;
+                }
+                buffer.append(text.subSequence(plainStart, i));
+                plainStart = i + 1;
+                switch (c) {
+                    case '"':
+                        buffer.append("\\\"");
+                        break;
+                    case '\\':
+                        buffer.append("\\\\");
+                        break;
+                    case '\n':
+                        buffer.append("\\n");
+                        break;
+                    case '\r':
+                        buffer.append("\\r");
+                        break;
+                    case '\t':
+                        buffer.append("\\t");
+                        break;
+                    case '\b':
+                        buffer.append("\\b");
+                        break;
+                    case '\f':
+                        buffer.append("\\f");
+                        break;
+                    default:
+                        buffer.append(String.format("\\u%04x", (int) c));
+                }
+            }
+            buffer.append(text.subSequence(plainStart, length));
+            buffer.append('"');
+        }
+    }
+}
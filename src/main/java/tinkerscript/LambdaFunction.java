@@ -20,7 +20,15 @@ public class LambdaFunction implements LangFunction {
 
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
-        Environment environment = new Environment(closure);
+        Environment environment = interpreter.newFrame(closure, lambda.escapes);
+        try {
+            return run(interpreter, environment, arguments);
+        } finally {
+            interpreter.releaseFrame(environment, lambda.escapes);
+        }
+    }
+
+    private Object run(Interpreter interpreter, Environment environment, List<Object> arguments) {
         List<Token> params = lambda.params;
         for (int i = 0; i < params.size() - 1; i++) {
             environment.define(params.get(i).lexeme, arguments.get(i));
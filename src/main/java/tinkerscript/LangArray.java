@@ -1,16 +1,16 @@
 package tinkerscript;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class LangArray extends LangInstance {
-    List<Object> elements;
+    RingList elements;
     final LangClass klass;
 
-    LangArray(LangClass klass, List<Object> elements) {
+    LangArray(LangClass klass, Collection<?> elements) {
         super(klass);
         this.klass = klass;
-        this.elements = new ArrayList<>(elements);
+        this.elements = new RingList(elements);
     }
 
     Object get(Token token, int index) {
@@ -49,20 +49,39 @@ public class LangArray extends LangInstance {
         if (this.elements.size() == 0) {
             throw new RuntimeError(null, "Can't pop from an empty array.");
         }
-        return this.elements.remove(this.elements.size() - 1);
+        return this.elements.removeLast();
+    }
+
+    Object shift() {
+        if (this.elements.size() == 0) {
+            throw new RuntimeError(null, "Can't shift from an empty array.");
+        }
+        return this.elements.removeFirst();
+    }
+
+    void unshift(Object value) {
+        this.elements.addFirst(value);
+    }
+
+    Object peekFirst() {
+        return this.elements.isEmpty() ? null : this.elements.get(0);
+    }
+
+    Object peekLast() {
+        return this.elements.isEmpty() ? null : this.elements.get(this.elements.size() - 1);
     }
 
     @Override
     public String toString() {
-        StringBuilder builder = new StringBuilder();
-        builder.append("[");
+        TextBuffer buffer = new TextBuffer(8 * elements.size() + 2);
+        buffer.append('[');
         for (int i = 0; i < elements.size(); i++) {
-            builder.append(TinkerScript.stringify(elements.get(i)));
+            buffer.appendValue(elements.get(i));
             if (i != elements.size() - 1) {
-                builder.append(", ");
+                buffer.append(", ");
             }
         }
-        builder.append("]");
-        return builder.toString();
+        buffer.append(']');
+        return buffer.toString();
     }
 }
@@ -0,0 +1,175 @@
+package tinkerscript;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Instance of the Buffer class, a fixed-size block of bytes outside the Java
+ * heap: either allocated directly or a memory-mapped file. Numbers are read
+ * and written at byte offsets in either byte order; slices share the memory
+ * of the buffer they were taken from.
+ */
+public class LangBuffer extends LangInstance {
+    enum Type {
+        U8(1), I8(1), U16(2), I16(2), U32(4), I32(4), F32(4), F64(8);
+
+        final int size;
+
+        Type(int size) {
+            this.size = size;
+        }
+    }
+
+    // the same memory seen in both byte orders, so no call has to switch the order
+    private ByteBuffer big;
+    private ByteBuffer little;
+
+    LangBuffer(LangClass klass) {
+        super(klass);
+    }
+
+    LangBuffer(LangClass klass, ByteBuffer bytes) {
+        super(klass);
+        wrap(bytes);
+    }
+
+    void allocate(int size) {
+        if (size < 0) {
+            throw new RuntimeError(null, "Invalid size. Expected a non-negative integer.");
+        }
+        wrap(ByteBuffer.allocateDirect(size));
+    }
+
+    private void wrap(ByteBuffer bytes) {
+        this.big = bytes.duplicate().order(ByteOrder.BIG_ENDIAN);
+        this.little = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    int size() {
+        return big.capacity();
+    }
+
+    private void checkRange(int offset, int length) {
+        if (offset < 0 || length < 0 || offset > size() - length) {
+            throw new RuntimeError(null, "Offset " + offset + " out of range.");
+        }
+    }
+
+    double read(Type type, int offset, boolean littleEndian) {
+        checkRange(offset, type.size);
+        ByteBuffer bytes = littleEndian ? little : big;
+        switch (type) {
+            case U8:
+                return bytes.get(offset) & 0xFF;
+            case I8:
+                return bytes.get(offset);
+            case U16:
+                return bytes.getShort(offset) & 0xFFFF;
+            case I16:
+                return bytes.getShort(offset);
+            case U32:
+                return bytes.getInt(offset) & 0xFFFFFFFFL;
+            case I32:
+                return bytes.getInt(offset);
+            case F32:
+                return bytes.getFloat(offset);
+            default:
+                return bytes.getDouble(offset);
+        }
+    }
+
+    /*
+     * Integer types keep the low bits of the number, so out of range values
+     * wrap around.
+     */
+    void write(Type type, int offset, double value, boolean littleEndian) {
+        checkRange(offset, type.size);
+        ByteBuffer bytes = littleEndian ? little : big;
+        try {
+            switch (type) {
+                case U8:
+                case I8:
+                    bytes.put(offset, (byte) (long) value);
+                    break;
+                case U16:
+                case I16:
+                    bytes.putShort(offset, (short) (long) value);
+                    break;
+                case U32:
+                case I32:
+                    bytes.putInt(offset, (int) (long) value);
+                    break;
+                case F32:
+                    bytes.putFloat(offset, (float) value);
+                    break;
+                default:
+                    bytes.putDouble(offset, value);
+            }
+        } catch (ReadOnlyBufferException e) {
+            throw readOnly();
+        }
+    }
+
+    private static RuntimeError readOnly() {
+        return new RuntimeError(null, "Buffer is read-only.");
+    }
+
+    // the bytes from start to end, sharing this buffer's memory
+    private ByteBuffer range(int start, int end) {
+        checkRange(start, end - start);
+        ByteBuffer view = big.duplicate();
+        view.limit(end);
+        view.position(start);
+        return view;
+    }
+
+    LangBuffer slice(int start, int end) {
+        return new LangBuffer(getKlass(), range(start, end).slice());
+    }
+
+    void copyTo(LangBuffer target, int targetOffset, int start, int end) {
+        ByteBuffer source = range(start, end);
+        ByteBuffer destination = target.range(targetOffset, targetOffset + source.remaining());
+        try {
+            destination.put(source);
+        } catch (ReadOnlyBufferException e) {
+            throw readOnly();
+        }
+    }
+
+    void fill(int value, int start, int end) {
+        ByteBuffer bytes = range(start, end);
+        byte[] chunk = new byte[Math.min(bytes.remaining(), 8192)];
+        Arrays.fill(chunk, (byte) value);
+        try {
+            while (bytes.hasRemaining()) {
+                bytes.put(chunk, 0, Math.min(chunk.length, bytes.remaining()));
+            }
+        } catch (ReadOnlyBufferException e) {
+            throw readOnly();
+        }
+    }
+
+    String readString(int start, int end) {
+        return StandardCharsets.UTF_8.decode(range(start, end)).toString();
+    }
+
+    // returns the number of bytes written
+    int writeString(int offset, CharSequence text) {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            range(offset, offset + bytes.length).put(bytes);
+        } catch (ReadOnlyBufferException e) {
+            throw readOnly();
+        }
+        return bytes.length;
+    }
+
+    @Override
+    public String toString() {
+        return "<buffer " + size() + " bytes>";
+    }
+}
@@ -50,9 +50,16 @@ public class LangClass implements LangCallable {
         return 0;
     }
 
+    LangInstance instantiate(LangClass klass) {
+        if (superClass != null) {
+            return superClass.instantiate(klass);
+        }
+        return new LangInstance(klass);
+    }
+
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
-        LangInstance instance = new LangInstance(this);
+        LangInstance instance = instantiate(this);
         LangFunction initializer = findMethod("init");
         if (initializer != null) {
             initializer.bind(instance).call(interpreter, arguments);
@@ -21,6 +21,13 @@ public class LangInstance {
         throw new RuntimeError(name, "Undefined property '" + name.lexeme + "'.");
     }
 
+    LangFunction findMethod(String name) {
+        LangFunction method = klass.findMethod(name);
+        if (method != null)
+            return method.bind(this);
+        return null;
+    }
+
     void set(Token name, Object value) {
         fields.put(name.lexeme, value);
     }
@@ -29,6 +36,10 @@ public class LangInstance {
         fields.put(name, value);
     }
 
+    LangClass getKlass() {
+        return klass;
+    }
+
     Map<String, Object> getFields() {
         return fields;
     }
@@ -0,0 +1,165 @@
+package tinkerscript;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Base class for the native iterators handed out to scripts. Scripts drive
+ * them through the hasNext() and next() methods of the Iterator class.
+ */
+public abstract class LangIterator extends LangInstance {
+
+    LangIterator(LangClass klass) {
+        super(klass);
+    }
+
+    abstract boolean hasNext(Interpreter interpreter);
+
+    abstract Object next(Interpreter interpreter, Token token);
+
+    @Override
+    public String toString() {
+        return "<iterator>";
+    }
+
+    static class ArrayIterator extends LangIterator {
+        private final List<Object> elements;
+        private int index = 0;
+
+        ArrayIterator(LangClass klass, List<Object> elements) {
+            super(klass);
+            this.elements = elements;
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            return index < elements.size();
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            if (!hasNext(interpreter)) {
+                throw new RuntimeError(token, "Iterator is exhausted.");
+            }
+            return elements.get(index++);
+        }
+    }
+
+    static class RangeIterator extends LangIterator {
+        private final LangRange range;
+        private long index = 0;
+
+        RangeIterator(LangClass klass, LangRange range) {
+            super(klass);
+            this.range = range;
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            return index < range.size;
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            if (!hasNext(interpreter)) {
+                throw new RuntimeError(token, "Iterator is exhausted.");
+            }
+            return range.valueAt(index++);
+        }
+    }
+
+    /*
+     * Reads lines lazily, one line ahead of the caller.
+     */
+    static class LineIterator extends LangIterator {
+        private final BufferedReader reader;
+        private final boolean closeAtEnd;
+        private String nextLine;
+        private boolean done = false;
+
+        LineIterator(LangClass klass, BufferedReader reader) {
+            this(klass, reader, false);
+        }
+
+        LineIterator(LangClass klass, BufferedReader reader, boolean closeAtEnd) {
+            super(klass);
+            this.reader = reader;
+            this.closeAtEnd = closeAtEnd;
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            if (nextLine == null && !done) {
+                try {
+                    nextLine = reader.readLine();
+                    done = nextLine == null;
+                    if (done && closeAtEnd) {
+                        reader.close();
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeError(null, "Error reading input.");
+                }
+            }
+            return nextLine != null;
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            if (!hasNext(interpreter)) {
+                throw new RuntimeError(token, "Iterator is exhausted.");
+            }
+            String line = nextLine;
+            nextLine = null;
+            return line;
+        }
+    }
+
+    static class StringIterator extends LangIterator {
+        private final CharSequence string;
+        private int index = 0;
+
+        StringIterator(LangClass klass, CharSequence string) {
+            super(klass);
+            this.string = string;
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            return index < string.length();
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            if (!hasNext(interpreter)) {
+                throw new RuntimeError(token, "Iterator is exhausted.");
+            }
+            return Strings.character(string.charAt(index++));
+        }
+    }
+
+    /*
+     * Adapts an instance of a user class that defines hasNext() and next()
+     * methods. The methods run on the interpreter driving the iterator, which
+     * may be a forked one rather than the one that created it.
+     */
+    static class InstanceIterator extends LangIterator {
+        private final LangInstance instance;
+
+        InstanceIterator(LangClass klass, LangInstance instance) {
+            super(klass);
+            this.instance = instance;
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            return interpreter.isTruthy(instance.findMethod("hasNext").call(interpreter, new ArrayList<>()));
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            return instance.findMethod("next").call(interpreter, new ArrayList<>());
+        }
+    }
+}
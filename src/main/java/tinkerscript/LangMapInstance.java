@@ -1,12 +1,16 @@
 package tinkerscript;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.function.Function;
 
 public class LangMapInstance extends LangInstance {
     private final Map<Object, Object> fields = new HashMap<>();
+    // number of structural changes, used to make the iterators fail-fast
+    private int modCount = 0;
 
     LangMapInstance(LangClass klass, Map<Object, Object> fields) {
         super(klass);
@@ -21,15 +25,69 @@ public class LangMapInstance extends LangInstance {
     }
 
     void set(Token token, Object key, Object value) {
+        if (!fields.containsKey(key)) {
+            modCount++;
+        }
         fields.put(key, value);
     }
 
-    public List<Object> getKeys() {
-        return new ArrayList<>(fields.keySet());
+    public Collection<Object> getKeys() {
+        return fields.keySet();
+    }
+
+    public Collection<Object> getValues() {
+        return fields.values();
+    }
+
+    LangIterator keyIterator(LangClass iteratorClass) {
+        return new MapIterator<>(iteratorClass, fields.keySet().iterator(), key -> key);
+    }
+
+    LangIterator valueIterator(LangClass iteratorClass) {
+        return new MapIterator<>(iteratorClass, fields.values().iterator(), value -> value);
+    }
+
+    LangIterator entryIterator(LangClass iteratorClass, LangClass arrayClass) {
+        return new MapIterator<>(iteratorClass, fields.entrySet().iterator(),
+                entry -> new LangArray(arrayClass, Arrays.asList(entry.getKey(), entry.getValue())));
     }
 
-    public List<Object> getValues() {
-        return new ArrayList<>(fields.values());
+    /*
+     * Streams directly from the backing table. Adding a key while iterating
+     * invalidates the iterator, assigning to an existing key does not.
+     */
+    private class MapIterator<T> extends LangIterator {
+        private final Iterator<T> iterator;
+        private final Function<T, Object> mapper;
+        private final int expectedModCount;
+
+        MapIterator(LangClass klass, Iterator<T> iterator, Function<T, Object> mapper) {
+            super(klass);
+            this.iterator = iterator;
+            this.mapper = mapper;
+            this.expectedModCount = modCount;
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            checkForModification(null);
+            return iterator.hasNext();
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            checkForModification(token);
+            if (!iterator.hasNext()) {
+                throw new RuntimeError(token, "Iterator is exhausted.");
+            }
+            return mapper.apply(iterator.next());
+        }
+
+        private void checkForModification(Token token) {
+            if (modCount != expectedModCount) {
+                throw new RuntimeError(token, "Map was modified during iteration.");
+            }
+        }
     }
 
     @Override
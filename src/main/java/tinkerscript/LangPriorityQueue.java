@@ -0,0 +1,35 @@
+package tinkerscript;
+
+import java.util.Collections;
+
+/*
+ * Instance of the PriorityQueue class. pop returns the value with the
+ * smallest priority, which is the value itself or what the key function
+ * given to the constructor returns for it.
+ */
+public class LangPriorityQueue extends LangInstance {
+    final Heap heap = new Heap();
+    LangCallable keyFunction;
+
+    LangPriorityQueue(LangClass klass) {
+        super(klass);
+    }
+
+    // the key function runs on the interpreter pushing, which may be a forked one
+    void push(Interpreter interpreter, Object value) {
+        heap.push(keyFunction == null ? value : keyFunction.call(interpreter, Collections.singletonList(value)),
+                value);
+    }
+
+    Object pop() {
+        if (heap.size() == 0) {
+            throw new RuntimeError(null, "Can't pop from an empty priority queue.");
+        }
+        return heap.pop();
+    }
+
+    @Override
+    public String toString() {
+        return "<priority queue>";
+    }
+}
@@ -0,0 +1,65 @@
+package tinkerscript;
+
+/*
+ * An arithmetic sequence of integers. Only the bounds are stored, elements are
+ * computed on access.
+ */
+public class LangRange extends LangInstance {
+    final long start;
+    // the end as given, only used for printing
+    final long end;
+    final long step;
+    final long size;
+
+    LangRange(LangClass klass, long start, long end, long step, long size) {
+        super(klass);
+        this.start = start;
+        this.end = end;
+        this.step = step;
+        this.size = size;
+    }
+
+    static LangRange of(LangClass klass, long start, long end, long step) {
+        // the distance between two longs always fits in an unsigned long
+        long size = 0;
+        if (step > 0 && end > start) {
+            size = Long.divideUnsigned(end - start - 1, step) + 1;
+        } else if (step < 0 && end < start) {
+            size = Long.divideUnsigned(start - end - 1, -step) + 1;
+        }
+        if (size < 0) {
+            throw new RuntimeError(null, "Range is too large.");
+        }
+        return new LangRange(klass, start, end, step, size);
+    }
+
+    double valueAt(long index) {
+        return (double) (start + index * step);
+    }
+
+    Object get(Token token, int index) {
+        if (index >= size) {
+            throw new RuntimeError(token, "Index " + index + " out of range.");
+        }
+        return valueAt(index);
+    }
+
+    Object getSlice(Token token, int start, int end) {
+        if (start > end) {
+            start = end;
+        }
+        if (end > size) {
+            end = (int) size;
+        }
+        if (start >= size) {
+            throw new RuntimeError(token, "Index " + start + " out of range.");
+        }
+        long first = this.start + start * step;
+        return new LangRange(getKlass(), first, first + (end - start) * step, step, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return "range(" + start + ", " + end + ", " + step + ")";
+    }
+}
@@ -0,0 +1,166 @@
+package tinkerscript;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A lazy view over an array or range. map, filter and take only record a
+ * stage; the stages run when a terminal operation (toArray, reduce, forEach,
+ * some, every, count, first) is called, in a single pass over the source and
+ * without intermediate arrays. Each stage returns a new sequence, so a
+ * sequence can be reused as the start of several pipelines.
+ */
+public class LangSeq extends LangInstance {
+    enum Kind {
+        MAP, FILTER, TAKE
+    }
+
+    static class Stage {
+        final Kind kind;
+        // called on the interpreter running the pipeline, null for take
+        final LangCallable function;
+        final long limit;
+
+        Stage(Kind kind, LangCallable function, long limit) {
+            this.kind = kind;
+            this.function = function;
+            this.limit = limit;
+        }
+    }
+
+    // receives each element that makes it through every stage, returns false to stop
+    interface Sink {
+        boolean accept(Object value);
+    }
+
+    private final List<Object> elements;
+    private final LangRange range;
+    private final List<Stage> stages;
+
+    private LangSeq(LangClass klass, List<Object> elements, LangRange range, List<Stage> stages) {
+        super(klass);
+        this.elements = elements;
+        this.range = range;
+        this.stages = stages;
+    }
+
+    static LangSeq of(LangClass klass, LangArray array) {
+        return new LangSeq(klass, array.elements, null, List.of());
+    }
+
+    static LangSeq of(LangClass klass, LangRange range) {
+        return new LangSeq(klass, null, range, List.of());
+    }
+
+    LangSeq then(Stage stage) {
+        List<Stage> next = new ArrayList<>(stages);
+        next.add(stage);
+        return new LangSeq(getKlass(), elements, range, next);
+    }
+
+    void run(Interpreter interpreter, Sink sink) {
+        long[] taken = new long[stages.size()];
+        Callback[] callbacks = new Callback[stages.size()];
+        for (int s = 0; s < stages.size(); s++) {
+            Stage stage = stages.get(s);
+            if (stage.kind == Kind.TAKE && stage.limit == 0) {
+                return;
+            }
+            if (stage.function != null) {
+                callbacks[s] = new Callback(interpreter, stage.function, 1, "Callback");
+            }
+        }
+        // the array may change while the callbacks run, so its size is read every time
+        for (long i = 0; i < (range != null ? range.size : elements.size()); i++) {
+            Object value = range != null ? range.valueAt(i) : elements.get((int) i);
+            boolean keep = true;
+            boolean last = false;
+            for (int s = 0; s < stages.size() && keep; s++) {
+                Stage stage = stages.get(s);
+                switch (stage.kind) {
+                    case MAP:
+                        value = callbacks[s].call(value);
+                        break;
+                    case FILTER:
+                        keep = callbacks[s].test(value);
+                        break;
+                    case TAKE:
+                        last |= ++taken[s] == stage.limit;
+                        break;
+                }
+            }
+            if ((keep && !sink.accept(value)) || last) {
+                return;
+            }
+        }
+    }
+
+    LangArray toArray(Interpreter interpreter, LangClass arrayClass) {
+        RingList values = new RingList(range != null ? (int) Math.min(range.size, 1 << 16) : elements.size());
+        run(interpreter, value -> values.add(value));
+        LangArray array = new LangArray(arrayClass, List.of());
+        array.elements = values;
+        return array;
+    }
+
+    // kind names the receiver in the error, since arrays reduce through a sequence too
+    Object reduce(Interpreter interpreter, Callback callback, boolean hasInitial, Object initial, String kind) {
+        Object[] accumulator = {initial};
+        boolean[] empty = {!hasInitial};
+        run(interpreter, value -> {
+            if (empty[0]) {
+                accumulator[0] = value;
+                empty[0] = false;
+            } else {
+                accumulator[0] = callback.call(accumulator[0], value);
+            }
+            return true;
+        });
+        if (empty[0]) {
+            throw new RuntimeError(null, "Can't reduce an empty " + kind + " without an initial value.");
+        }
+        return accumulator[0];
+    }
+
+    void forEach(Interpreter interpreter, Callback callback) {
+        run(interpreter, value -> {
+            callback.call(value);
+            return true;
+        });
+    }
+
+    boolean some(Interpreter interpreter, Callback callback) {
+        boolean[] found = {false};
+        run(interpreter, value -> !(found[0] = callback.test(value)));
+        return found[0];
+    }
+
+    boolean every(Interpreter interpreter, Callback callback) {
+        boolean[] all = {true};
+        run(interpreter, value -> all[0] = callback.test(value));
+        return all[0];
+    }
+
+    long count(Interpreter interpreter) {
+        long[] count = {0};
+        run(interpreter, value -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    Object first(Interpreter interpreter) {
+        Object[] first = {null};
+        run(interpreter, value -> {
+            first[0] = value;
+            return false;
+        });
+        return first[0];
+    }
+
+    @Override
+    public String toString() {
+        return "<seq>";
+    }
+}
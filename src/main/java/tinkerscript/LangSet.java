@@ -0,0 +1,137 @@
+package tinkerscript;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/*
+ * Instance of the Set class. Values follow the same rules as map keys
+ * (strings, numbers and booleans), see Interpreter.checkMapKey.
+ */
+public class LangSet extends LangInstance {
+    private final Set<Object> values = new HashSet<>();
+    // number of structural changes, used to make the iterators fail-fast
+    private int modCount = 0;
+
+    LangSet(LangClass klass) {
+        super(klass);
+    }
+
+    boolean add(Object value) {
+        boolean added = values.add(Interpreter.checkMapKey(value));
+        if (added) {
+            modCount++;
+        }
+        return added;
+    }
+
+    boolean has(Object value) {
+        value = Rope.flatten(value);
+        return values.contains(value);
+    }
+
+    boolean remove(Object value) {
+        boolean removed = values.remove(Rope.flatten(value));
+        if (removed) {
+            modCount++;
+        }
+        return removed;
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    void clear() {
+        values.clear();
+        modCount++;
+    }
+
+    Set<Object> getValues() {
+        return values;
+    }
+
+    LangSet union(LangSet other) {
+        LangSet result = new LangSet(getKlass());
+        result.values.addAll(values);
+        result.values.addAll(other.values);
+        return result;
+    }
+
+    LangSet intersection(LangSet other) {
+        // walks the smaller set and probes the larger one
+        Set<Object> smaller = values.size() <= other.values.size() ? values : other.values;
+        Set<Object> larger = smaller == values ? other.values : values;
+        LangSet result = new LangSet(getKlass());
+        for (Object value : smaller) {
+            if (larger.contains(value)) {
+                result.values.add(value);
+            }
+        }
+        return result;
+    }
+
+    LangSet difference(LangSet other) {
+        LangSet result = new LangSet(getKlass());
+        for (Object value : values) {
+            if (!other.values.contains(value)) {
+                result.values.add(value);
+            }
+        }
+        return result;
+    }
+
+    LangIterator iterator(LangClass iteratorClass) {
+        return new SetIterator(iteratorClass);
+    }
+
+    /*
+     * Streams directly from the backing table. Adding or removing a value
+     * while iterating invalidates the iterator.
+     */
+    private class SetIterator extends LangIterator {
+        private final Iterator<Object> iterator = values.iterator();
+        private final int expectedModCount = modCount;
+
+        SetIterator(LangClass klass) {
+            super(klass);
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            checkForModification(null);
+            return iterator.hasNext();
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            checkForModification(token);
+            if (!iterator.hasNext()) {
+                throw new RuntimeError(token, "Iterator is exhausted.");
+            }
+            return iterator.next();
+        }
+
+        private void checkForModification(Token token) {
+            if (modCount != expectedModCount) {
+                throw new RuntimeError(token, "Set was modified during iteration.");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        TextBuffer buffer = new TextBuffer(8 * values.size() + 2);
+        buffer.append('{');
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                buffer.append(", ");
+            }
+            buffer.appendValue(value);
+            first = false;
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package tinkerscript;
+
+/*
+ * Instance of the StringBuilder class, a mutable buffer scripts can append to
+ * in linear time.
+ */
+public class LangStringBuilder extends LangInstance {
+    final TextBuffer buffer = new TextBuffer(16);
+
+    LangStringBuilder(LangClass klass) {
+        super(klass);
+    }
+
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+}
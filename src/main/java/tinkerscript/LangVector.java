@@ -0,0 +1,172 @@
+package tinkerscript;
+
+import java.util.List;
+
+/*
+ * Instance of the Vector class, a fixed-size array of unboxed doubles. The
+ * bulk operations are plain counted loops over double[] that the JIT can
+ * unroll and vectorise.
+ */
+public class LangVector extends LangInstance {
+    double[] values;
+
+    LangVector(LangClass klass) {
+        super(klass);
+    }
+
+    LangVector(LangClass klass, double[] values) {
+        super(klass);
+        this.values = values;
+    }
+
+    void initialize(Object source) {
+        if (source instanceof Double) {
+            int size = Strings.integer(source);
+            if (size < 0) {
+                throw new RuntimeError(null, "Invalid size. Expected a non-negative integer.");
+            }
+            values = new double[size];
+            return;
+        }
+        if (!(source instanceof LangArray)) {
+            throw new RuntimeError(null, "Invalid argument type. Expected size or array.");
+        }
+        List<Object> elements = ((LangArray) source).elements;
+        values = new double[elements.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object element = elements.get(i);
+            if (!(element instanceof Double)) {
+                throw new RuntimeError(null, "Vector elements must be numbers.");
+            }
+            values[i] = (double) element;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= values.length) {
+            throw new RuntimeError(null, "Index " + index + " out of range.");
+        }
+    }
+
+    double get(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    void set(int index, double value) {
+        checkIndex(index);
+        values[index] = value;
+    }
+
+    private double[] sameSize(LangVector other) {
+        if (other.values.length != values.length) {
+            throw new RuntimeError(null, "Vectors must have the same size.");
+        }
+        return other.values;
+    }
+
+    LangVector add(LangVector other) {
+        double[] a = values;
+        double[] b = sameSize(other);
+        double[] result = new double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[i] + b[i];
+        }
+        return new LangVector(getKlass(), result);
+    }
+
+    LangVector mul(LangVector other) {
+        double[] a = values;
+        double[] b = sameSize(other);
+        double[] result = new double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[i] * b[i];
+        }
+        return new LangVector(getKlass(), result);
+    }
+
+    LangVector scale(double factor) {
+        double[] a = values;
+        double[] result = new double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[i] * factor;
+        }
+        return new LangVector(getKlass(), result);
+    }
+
+    // this = factor * x + this, in place
+    void axpy(double factor, LangVector x) {
+        double[] y = values;
+        double[] b = sameSize(x);
+        for (int i = 0; i < y.length; i++) {
+            y[i] += factor * b[i];
+        }
+    }
+
+    double dot(LangVector other) {
+        double[] a = values;
+        double[] b = sameSize(other);
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    double sum() {
+        double[] a = values;
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    Object min() {
+        double[] a = values;
+        if (a.length == 0) {
+            return null;
+        }
+        double min = a[0];
+        for (int i = 1; i < a.length; i++) {
+            min = Math.min(min, a[i]);
+        }
+        return min;
+    }
+
+    Object max() {
+        double[] a = values;
+        if (a.length == 0) {
+            return null;
+        }
+        double max = a[0];
+        for (int i = 1; i < a.length; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+
+    LangArray toArray(LangClass arrayClass) {
+        RingList elements = new RingList(values.length);
+        for (double value : values) {
+            elements.add(value);
+        }
+        LangArray array = new LangArray(arrayClass, List.of());
+        array.elements = elements;
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        TextBuffer buffer = new TextBuffer(8 * values.length + 2);
+        buffer.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.appendNumber(values[i]);
+        }
+        buffer.append(']');
+        return buffer.toString();
+    }
+}
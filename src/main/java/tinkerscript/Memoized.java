@@ -0,0 +1,129 @@
+package tinkerscript;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * A function wrapped by memoize(). Results are cached by argument list, with
+ * arguments compared like == compares them, and the least recently used entry
+ * is evicted once the cache holds maxEntries results. Calls that throw are not
+ * cached.
+ */
+public class Memoized extends LangInstance implements LangCallable {
+    static final int DEFAULT_MAX_ENTRIES = 10000;
+    // stands in for a nil result, so a missing entry can be told apart
+    private static final Object NIL = new Object();
+
+    private final LangCallable function;
+    private final int maxEntries;
+    private final Map<Object, Object> cache;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    Memoized(LangClass klass, LangCallable function, int maxEntries) {
+        super(klass);
+        this.function = function;
+        this.maxEntries = maxEntries;
+        this.cache = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                if (size() > Memoized.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /*
+     * A list of arguments as a hash key. Strings in any representation are
+     * flattened, so equal strings give equal keys.
+     */
+    private static final class Key {
+        private final Object[] values;
+        private final int hash;
+
+        Key(Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(values, ((Key) other).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static Object key(List<Object> arguments) {
+        // a single argument is its own key, saving the wrapper
+        if (arguments.size() == 1) {
+            return Rope.flatten(arguments.get(0));
+        }
+        Object[] values = new Object[arguments.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Rope.flatten(arguments.get(i));
+        }
+        return new Key(values);
+    }
+
+    @Override
+    public int arity() {
+        return function.arity();
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        Object key = key(arguments);
+        // parallel callbacks may share a memoized function
+        synchronized (cache) {
+            Object cached = cache.get(key);
+            if (cached != null) {
+                hits++;
+                return cached == NIL ? null : cached;
+            }
+            misses++;
+        }
+        // not locked while calling, the function may call itself
+        Object result = function.call(interpreter, arguments);
+        synchronized (cache) {
+            cache.put(key, result == null ? NIL : result);
+        }
+        return result;
+    }
+
+    LangMapInstance stats(LangClass mapClass) {
+        Map<Object, Object> stats = new HashMap<>();
+        synchronized (cache) {
+            stats.put("hits", (double) hits);
+            stats.put("misses", (double) misses);
+            stats.put("evictions", (double) evictions);
+            stats.put("size", (double) cache.size());
+            stats.put("maxEntries", (double) maxEntries);
+        }
+        return new LangMapInstance(mapClass, stats);
+    }
+
+    void clear() {
+        synchronized (cache) {
+            cache.clear();
+            hits = 0;
+            misses = 0;
+            evictions = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<memoized " + function + ">";
+    }
+}
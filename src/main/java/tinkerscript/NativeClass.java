@@ -0,0 +1,27 @@
+package tinkerscript;
+
+import java.util.Map;
+
+/*
+ * A built-in class whose instances are backed by a Java object, for example
+ * StringBuilder. Subclasses of a native class get the native representation
+ * too.
+ */
+public class NativeClass extends LangClass {
+    interface InstanceFactory {
+        LangInstance create(LangClass klass);
+    }
+
+    private final InstanceFactory factory;
+
+    NativeClass(String name, Map<String, LangFunction> methods, Map<String, LangFunction> staticMethods,
+            InstanceFactory factory) {
+        super(name, methods, staticMethods, null);
+        this.factory = factory;
+    }
+
+    @Override
+    LangInstance instantiate(LangClass klass) {
+        return factory.create(klass);
+    }
+}
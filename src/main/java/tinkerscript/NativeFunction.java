@@ -1,55 +1,2916 @@
 package tinkerscript;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Pattern;
+
+public abstract class NativeFunction implements LangFunction, Cloneable {
+    /*
+     * A native method is shared by every instance of its class, so binding
+     * returns a copy that holds the receiver. This keeps calls on different
+     * instances from interfering, including calls made from other threads.
+     */
+    @SuppressWarnings("unchecked")
+    <T extends NativeFunction> T copy() {
+        try {
+            return (T) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // for natives with optional trailing arguments, which report an arity of -1
+    static void checkArgumentCount(List<Object> arguments, int min, int max) {
+        if (arguments.size() < min || arguments.size() > max) {
+            throw new RuntimeError(null,
+                    "Expected " + min + " to " + max + " arguments but got " + arguments.size() + ".");
+        }
+    }
+
+    static Object optionalArgument(List<Object> arguments, int index) {
+        return index < arguments.size() ? arguments.get(index) : null;
+    }
+
+    static double number(Object value) {
+        if (!(value instanceof Double)) {
+            throw new RuntimeError(null, "Invalid argument type. Expected number.");
+        }
+        return (double) value;
+    }
 
-public abstract class NativeFunction implements LangFunction {
     static class ArrayLength extends NativeFunction {
 
-        @Override
-        public int arity() {
-            return 1;
-        }
+        @Override
+        public int arity() {
+            return 1;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            Object instance = arguments.get(0);
+            if (instance instanceof LangRange) {
+                return (double) ((LangRange) instance).size;
+            }
+            if (instance instanceof LangVector) {
+                return (double) ((LangVector) instance).values.length;
+            }
+            if (!(instance instanceof LangArray)) {
+                throw new RuntimeError(null, "Invalid argument type. Expected array.");
+            }
+            return (double) ((LangArray) instance).elements.size();
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    // range
+    static class Range extends NativeFunction {
+        @Override
+        public int arity() {
+            return -1;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            if (arguments.size() < 1 || arguments.size() > 3) {
+                throw new RuntimeError(null, "Expected 1 to 3 arguments but got " + arguments.size() + ".");
+            }
+            long[] bounds = new long[arguments.size()];
+            for (int i = 0; i < bounds.length; i++) {
+                Object argument = arguments.get(i);
+                if (!(argument instanceof Double) || (double) argument != Math.rint((double) argument)
+                        || Double.isInfinite((double) argument)) {
+                    throw new RuntimeError(null, "Invalid argument type. Expected integer.");
+                }
+                bounds[i] = (long) (double) argument;
+            }
+            long start = bounds.length == 1 ? 0 : bounds[0];
+            long end = bounds.length == 1 ? bounds[0] : bounds[1];
+            long step = bounds.length == 3 ? bounds[2] : 1;
+            if (step == 0) {
+                throw new RuntimeError(null, "Range step can't be zero.");
+            }
+            LangClass klass = (LangClass) interpreter.globals.get("Range");
+            return LangRange.of(klass, start, end, step);
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    // clock
+    static class Clock extends NativeFunction {
+        @Override
+        public int arity() {
+            return 0;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            return (double) System.currentTimeMillis() / 1000.0;
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    static class ClockNanos extends NativeFunction {
+        @Override
+        public int arity() {
+            return 0;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            return (double) System.nanoTime();
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    static class PurityOf extends NativeFunction {
+        @Override
+        public int arity() {
+            return 1;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            if (!(arguments.get(0) instanceof LangCallable)) {
+                throw new RuntimeError(null, "Invalid argument type. Expected function.");
+            }
+            return interpreter.purityOf(arguments.get(0)).name().toLowerCase();
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    static class Bench extends NativeFunction {
+        @Override
+        public int arity() {
+            return -1;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            checkArgumentCount(arguments, 1, 2);
+            if (!(arguments.get(0) instanceof LangCallable)) {
+                throw new RuntimeError(null, "Invalid argument type. Expected function.");
+            }
+            return Benchmark.run(interpreter, (LangCallable) arguments.get(0), optionalArgument(arguments, 1));
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    static class TopK extends NativeFunction {
+        @Override
+        public int arity() {
+            return -1;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            checkArgumentCount(arguments, 2, 3);
+            if (!(arguments.get(0) instanceof LangArray)) {
+                throw new RuntimeError(null, "Invalid argument type. Expected array.");
+            }
+            LangArray array = (LangArray) arguments.get(0);
+            int k = Strings.integer(arguments.get(1));
+            if (k < 0) {
+                throw new RuntimeError(null, "Invalid count. Expected a non-negative integer.");
+            }
+            Object keyFunction = optionalArgument(arguments, 2);
+            Callback callback = keyFunction == null ? null : new Callback(interpreter, keyFunction, 1, "Key function");
+            return new LangArray(array.klass, Arrays.asList(Heap.topK(array.elements, k, callback)));
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    static class Memoize extends NativeFunction {
+        @Override
+        public int arity() {
+            return -1;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            checkArgumentCount(arguments, 1, 2);
+            if (!(arguments.get(0) instanceof LangCallable)) {
+                throw new RuntimeError(null, "Invalid argument type. Expected function.");
+            }
+            Object maxEntries = optionalArgument(arguments, 1);
+            int size = maxEntries == null ? Memoized.DEFAULT_MAX_ENTRIES : Strings.integer(maxEntries);
+            if (size < 1) {
+                throw new RuntimeError(null, "Invalid maximum number of entries. Expected a positive integer.");
+            }
+            LangClass memoizedClass = (LangClass) interpreter.globals.get("Memoized");
+            return new Memoized(memoizedClass, (LangCallable) arguments.get(0), size);
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    static class ArrayFunction {
+        static class Push extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                Object value = arguments.get(0);
+                instance.push(value);
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                Push bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class Sort extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 0, 1);
+                if (arguments.isEmpty()) {
+                    Sorting.sort(instance.elements);
+                } else {
+                    Sorting.sort(instance.elements, new Callback(interpreter, arguments.get(0), 2, "Comparator"));
+                }
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                Sort bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class SortBy extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                Sorting.sortBy(instance.elements, new Callback(interpreter, arguments.get(0), 1, "Key function"));
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                SortBy bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class MapValues extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangCallable function = Callback.check(arguments.get(0), 1, "Callback");
+                return LangSeq.of((LangClass) interpreter.globals.get("Seq"), instance)
+                        .then(new LangSeq.Stage(LangSeq.Kind.MAP, function, 0))
+                        .toArray(interpreter, instance.klass);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                MapValues bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class Filter extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangCallable function = Callback.check(arguments.get(0), 1, "Callback");
+                return LangSeq.of((LangClass) interpreter.globals.get("Seq"), instance)
+                        .then(new LangSeq.Stage(LangSeq.Kind.FILTER, function, 0))
+                        .toArray(interpreter, instance.klass);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                Filter bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class Reduce extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 2);
+                Callback callback = new Callback(interpreter, arguments.get(0), 2, "Callback");
+                return LangSeq.of((LangClass) interpreter.globals.get("Seq"), instance).reduce(interpreter, callback, arguments.size() == 2, optionalArgument(arguments, 1),
+                        "array");
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                Reduce bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class ForEach extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangSeq.of((LangClass) interpreter.globals.get("Seq"), instance).forEach(interpreter, new Callback(interpreter, arguments.get(0), 1, "Callback"));
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                ForEach bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class Some extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return LangSeq.of((LangClass) interpreter.globals.get("Seq"), instance).some(interpreter, new Callback(interpreter, arguments.get(0), 1, "Callback"));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                Some bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class Every extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return LangSeq.of((LangClass) interpreter.globals.get("Seq"), instance).every(interpreter, new Callback(interpreter, arguments.get(0), 1, "Callback"));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                Every bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class Seq extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return LangSeq.of((LangClass) interpreter.globals.get("Seq"), instance);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                Seq bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class ParallelMap extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return Parallel.map(interpreter, instance, arguments.get(0));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                ParallelMap bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class ParallelFilter extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return Parallel.filter(interpreter, instance, arguments.get(0));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                ParallelFilter bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class ParallelReduce extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 2);
+                return Parallel.reduce(interpreter, instance, arguments.get(0), arguments.size() == 2,
+                        optionalArgument(arguments, 1));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                ParallelReduce bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class Pop extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.pop();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                Pop bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class Shift extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.shift();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                Shift bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class Unshift extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.unshift(arguments.get(0));
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                Unshift bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class PeekFirst extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.peekFirst();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                PeekFirst bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+
+        static class PeekLast extends NativeFunction {
+
+            private LangArray instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.peekLast();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                }
+                PeekLast bound = copy();
+                bound.instance = (LangArray) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class MapFunction {
+        static class Keys extends NativeFunction {
+            private LangMapInstance instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangClass klass = (LangClass) interpreter.globals.get("Array");
+                LangArray array = new LangArray(klass, instance.getKeys());
+                return array;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangMapInstance)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected map.");
+                }
+                Keys bound = copy();
+                bound.instance = (LangMapInstance) instance;
+                return bound;
+            }
+        }
+
+        static class Values extends NativeFunction {
+
+            private LangMapInstance instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangClass klass = (LangClass) interpreter.globals.get("Array");
+                LangArray array = new LangArray(klass, instance.getValues());
+                return array;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangMapInstance)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected map.");
+                }
+                Values bound = copy();
+                bound.instance = (LangMapInstance) instance;
+                return bound;
+            }
+        }
+        static class KeyIterator extends NativeFunction {
+            private LangMapInstance instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangClass klass = (LangClass) interpreter.globals.get("Iterator");
+                return instance.keyIterator(klass);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangMapInstance)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected map.");
+                }
+                KeyIterator bound = copy();
+                bound.instance = (LangMapInstance) instance;
+                return bound;
+            }
+        }
+
+        static class ValueIterator extends NativeFunction {
+            private LangMapInstance instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangClass klass = (LangClass) interpreter.globals.get("Iterator");
+                return instance.valueIterator(klass);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangMapInstance)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected map.");
+                }
+                ValueIterator bound = copy();
+                bound.instance = (LangMapInstance) instance;
+                return bound;
+            }
+        }
+
+        static class EntryIterator extends NativeFunction {
+            private LangMapInstance instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangClass klass = (LangClass) interpreter.globals.get("Iterator");
+                LangClass arrayClass = (LangClass) interpreter.globals.get("Array");
+                return instance.entryIterator(klass, arrayClass);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangMapInstance)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected map.");
+                }
+                EntryIterator bound = copy();
+                bound.instance = (LangMapInstance) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class SetFunction {
+        static LangSet set(Object value) {
+            if (!(value instanceof LangSet)) {
+                throw new RuntimeError(null, "Invalid argument type. Expected set.");
+            }
+            return (LangSet) value;
+        }
+
+        static class Init extends NativeFunction {
+            private LangSet instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 0, 1);
+                if (arguments.isEmpty()) {
+                    return instance;
+                }
+                Object values = arguments.get(0);
+                if (values instanceof LangArray) {
+                    for (Object value : ((LangArray) values).elements) {
+                        instance.add(value);
+                    }
+                } else {
+                    LangIterator iterator = interpreter.iterator(null, values);
+                    while (iterator.hasNext(interpreter)) {
+                        instance.add(iterator.next(interpreter, null));
+                    }
+                }
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSet)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected set.");
+                }
+                Init bound = copy();
+                bound.instance = (LangSet) instance;
+                return bound;
+            }
+        }
+
+        static class Add extends NativeFunction {
+            private LangSet instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.add(arguments.get(0));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSet)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected set.");
+                }
+                Add bound = copy();
+                bound.instance = (LangSet) instance;
+                return bound;
+            }
+        }
+
+        static class Has extends NativeFunction {
+            private LangSet instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.has(arguments.get(0));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSet)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected set.");
+                }
+                Has bound = copy();
+                bound.instance = (LangSet) instance;
+                return bound;
+            }
+        }
+
+        static class Remove extends NativeFunction {
+            private LangSet instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.remove(arguments.get(0));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSet)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected set.");
+                }
+                Remove bound = copy();
+                bound.instance = (LangSet) instance;
+                return bound;
+            }
+        }
+
+        static class Size extends NativeFunction {
+            private LangSet instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return (double) instance.size();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSet)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected set.");
+                }
+                Size bound = copy();
+                bound.instance = (LangSet) instance;
+                return bound;
+            }
+        }
+
+        static class Clear extends NativeFunction {
+            private LangSet instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.clear();
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSet)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected set.");
+                }
+                Clear bound = copy();
+                bound.instance = (LangSet) instance;
+                return bound;
+            }
+        }
+
+        static class Values extends NativeFunction {
+            private LangSet instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangClass klass = (LangClass) interpreter.globals.get("Array");
+                return new LangArray(klass, instance.getValues());
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSet)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected set.");
+                }
+                Values bound = copy();
+                bound.instance = (LangSet) instance;
+                return bound;
+            }
+        }
+
+        static class Union extends NativeFunction {
+            private LangSet instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.union(set(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSet)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected set.");
+                }
+                Union bound = copy();
+                bound.instance = (LangSet) instance;
+                return bound;
+            }
+        }
+
+        static class Intersection extends NativeFunction {
+            private LangSet instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.intersection(set(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSet)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected set.");
+                }
+                Intersection bound = copy();
+                bound.instance = (LangSet) instance;
+                return bound;
+            }
+        }
+
+        static class Difference extends NativeFunction {
+            private LangSet instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.difference(set(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSet)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected set.");
+                }
+                Difference bound = copy();
+                bound.instance = (LangSet) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class PriorityQueueFunction {
+        static class Init extends NativeFunction {
+            private LangPriorityQueue instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 0, 1);
+                if (!arguments.isEmpty()) {
+                    instance.keyFunction = Callback.check(arguments.get(0), 1, "Key function");
+                }
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangPriorityQueue)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected priority queue.");
+                }
+                Init bound = copy();
+                bound.instance = (LangPriorityQueue) instance;
+                return bound;
+            }
+        }
+
+        static class Push extends NativeFunction {
+            private LangPriorityQueue instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.push(interpreter, arguments.get(0));
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangPriorityQueue)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected priority queue.");
+                }
+                Push bound = copy();
+                bound.instance = (LangPriorityQueue) instance;
+                return bound;
+            }
+        }
+
+        static class Pop extends NativeFunction {
+            private LangPriorityQueue instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.pop();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangPriorityQueue)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected priority queue.");
+                }
+                Pop bound = copy();
+                bound.instance = (LangPriorityQueue) instance;
+                return bound;
+            }
+        }
+
+        static class Peek extends NativeFunction {
+            private LangPriorityQueue instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.heap.peek();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangPriorityQueue)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected priority queue.");
+                }
+                Peek bound = copy();
+                bound.instance = (LangPriorityQueue) instance;
+                return bound;
+            }
+        }
+
+        static class Size extends NativeFunction {
+            private LangPriorityQueue instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return (double) instance.heap.size();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangPriorityQueue)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected priority queue.");
+                }
+                Size bound = copy();
+                bound.instance = (LangPriorityQueue) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class BufferFunction {
+        static LangBuffer buffer(Object value) {
+            if (!(value instanceof LangBuffer)) {
+                throw new RuntimeError(null, "Invalid argument type. Expected buffer.");
+            }
+            return (LangBuffer) value;
+        }
+
+        // an optional integer argument
+        static int integer(List<Object> arguments, int index, int otherwise) {
+            Object value = optionalArgument(arguments, index);
+            return value == null ? otherwise : Strings.integer(value);
+        }
+
+        static class MapFile extends NativeFunction {
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 2);
+                Object mode = optionalArgument(arguments, 1);
+                boolean writable = mode != null && mode.toString().equals("rw");
+                if (mode != null && !writable && !mode.toString().equals("r")) {
+                    throw new RuntimeError(null, "Invalid mode " + TinkerScript.stringify(mode) + ". Expected 'r' or 'rw'.");
+                }
+                LangClass bufferClass = (LangClass) interpreter.globals.get("Buffer");
+                return new LangBuffer(bufferClass, FileIO.map(FileIO.path(arguments.get(0)), writable));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Init extends NativeFunction {
+            private LangBuffer instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.allocate(Strings.integer(arguments.get(0)));
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangBuffer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected buffer.");
+                }
+                Init bound = copy();
+                bound.instance = (LangBuffer) instance;
+                return bound;
+            }
+        }
+
+        static class Size extends NativeFunction {
+            private LangBuffer instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return (double) instance.size();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangBuffer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected buffer.");
+                }
+                Size bound = copy();
+                bound.instance = (LangBuffer) instance;
+                return bound;
+            }
+        }
+
+        static class Read extends NativeFunction {
+            private LangBuffer instance;
+            private final LangBuffer.Type type;
+
+            Read(LangBuffer.Type type) {
+                this.type = type;
+            }
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 2);
+                return instance.read(type, Strings.integer(arguments.get(0)),
+                        interpreter.isTruthy(optionalArgument(arguments, 1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangBuffer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected buffer.");
+                }
+                Read bound = copy();
+                bound.instance = (LangBuffer) instance;
+                return bound;
+            }
+        }
+
+        static class Write extends NativeFunction {
+            private LangBuffer instance;
+            private final LangBuffer.Type type;
+
+            Write(LangBuffer.Type type) {
+                this.type = type;
+            }
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 2, 3);
+                instance.write(type, Strings.integer(arguments.get(0)), number(arguments.get(1)),
+                        interpreter.isTruthy(optionalArgument(arguments, 2)));
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangBuffer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected buffer.");
+                }
+                Write bound = copy();
+                bound.instance = (LangBuffer) instance;
+                return bound;
+            }
+        }
+
+        static class Slice extends NativeFunction {
+            private LangBuffer instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 2);
+                return instance.slice(Strings.integer(arguments.get(0)), integer(arguments, 1, instance.size()));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangBuffer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected buffer.");
+                }
+                Slice bound = copy();
+                bound.instance = (LangBuffer) instance;
+                return bound;
+            }
+        }
+
+        static class CopyTo extends NativeFunction {
+            private LangBuffer instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 4);
+                instance.copyTo(buffer(arguments.get(0)), integer(arguments, 1, 0), integer(arguments, 2, 0),
+                        integer(arguments, 3, instance.size()));
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangBuffer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected buffer.");
+                }
+                CopyTo bound = copy();
+                bound.instance = (LangBuffer) instance;
+                return bound;
+            }
+        }
+
+        static class Fill extends NativeFunction {
+            private LangBuffer instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 3);
+                instance.fill(Strings.integer(arguments.get(0)), integer(arguments, 1, 0),
+                        integer(arguments, 2, instance.size()));
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangBuffer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected buffer.");
+                }
+                Fill bound = copy();
+                bound.instance = (LangBuffer) instance;
+                return bound;
+            }
+        }
+
+        static class ReadString extends NativeFunction {
+            private LangBuffer instance;
+
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.readString(Strings.integer(arguments.get(0)), Strings.integer(arguments.get(1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangBuffer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected buffer.");
+                }
+                ReadString bound = copy();
+                bound.instance = (LangBuffer) instance;
+                return bound;
+            }
+        }
+
+        static class WriteString extends NativeFunction {
+            private LangBuffer instance;
+
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                if (!(arguments.get(1) instanceof CharSequence)) {
+                    throw new RuntimeError(null, "Invalid argument type. Expected string.");
+                }
+                return (double) instance.writeString(Strings.integer(arguments.get(0)), (CharSequence) arguments.get(1));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangBuffer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected buffer.");
+                }
+                WriteString bound = copy();
+                bound.instance = (LangBuffer) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class VectorFunction {
+        static LangVector vector(Object value) {
+            if (!(value instanceof LangVector)) {
+                throw new RuntimeError(null, "Invalid argument type. Expected vector.");
+            }
+            return (LangVector) value;
+        }
+
+        static class Init extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.initialize(arguments.get(0));
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Init bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Size extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return (double) instance.values.length;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Size bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Get extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.get(Strings.integer(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Get bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Set extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.set(Strings.integer(arguments.get(0)), number(arguments.get(1)));
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Set bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Add extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.add(vector(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Add bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Mul extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.mul(vector(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Mul bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Scale extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.scale(number(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Scale bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Axpy extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.axpy(number(arguments.get(0)), vector(arguments.get(1)));
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Axpy bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Dot extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.dot(vector(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Dot bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Sum extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.sum();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Sum bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Min extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.min();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Min bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class Max extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.max();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                Max bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+
+        static class ToArray extends NativeFunction {
+            private LangVector instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.toArray((LangClass) interpreter.globals.get("Array"));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangVector)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected vector.");
+                }
+                ToArray bound = copy();
+                bound.instance = (LangVector) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class MemoizedFunction {
+        static class Stats extends NativeFunction {
+            private Memoized instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.stats((LangClass) interpreter.globals.get("Map"));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof Memoized)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected memoized function.");
+                }
+                Stats bound = copy();
+                bound.instance = (Memoized) instance;
+                return bound;
+            }
+        }
+
+        static class Clear extends NativeFunction {
+            private Memoized instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.clear();
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof Memoized)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected memoized function.");
+                }
+                Clear bound = copy();
+                bound.instance = (Memoized) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class StringBuilderFunction {
+        static class Init extends NativeFunction {
+            private LangStringBuilder instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                for (Object argument : arguments) {
+                    instance.buffer.appendValue(argument);
+                }
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangStringBuilder)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected string builder.");
+                }
+                Init bound = copy();
+                bound.instance = (LangStringBuilder) instance;
+                return bound;
+            }
+        }
+
+        static class Append extends NativeFunction {
+            private LangStringBuilder instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                for (Object argument : arguments) {
+                    instance.buffer.appendValue(argument);
+                }
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangStringBuilder)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected string builder.");
+                }
+                Append bound = copy();
+                bound.instance = (LangStringBuilder) instance;
+                return bound;
+            }
+        }
+
+        static class AppendLine extends NativeFunction {
+            private LangStringBuilder instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                for (Object argument : arguments) {
+                    instance.buffer.appendValue(argument);
+                }
+                instance.buffer.append('\n');
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangStringBuilder)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected string builder.");
+                }
+                AppendLine bound = copy();
+                bound.instance = (LangStringBuilder) instance;
+                return bound;
+            }
+        }
+
+        static class Length extends NativeFunction {
+            private LangStringBuilder instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return (double) instance.buffer.length();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangStringBuilder)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected string builder.");
+                }
+                Length bound = copy();
+                bound.instance = (LangStringBuilder) instance;
+                return bound;
+            }
+        }
+
+        static class Clear extends NativeFunction {
+            private LangStringBuilder instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.buffer.clear();
+                return instance;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangStringBuilder)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected string builder.");
+                }
+                Clear bound = copy();
+                bound.instance = (LangStringBuilder) instance;
+                return bound;
+            }
+        }
+
+        static class ToString extends NativeFunction {
+            private LangStringBuilder instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.toString();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangStringBuilder)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected string builder.");
+                }
+                StringBuilderFunction.ToString bound = copy();
+                bound.instance = (LangStringBuilder) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class IteratorFunction {
+        static class HasNext extends NativeFunction {
+            private LangIterator instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.hasNext(interpreter);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangIterator)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected iterator.");
+                }
+                HasNext bound = copy();
+                bound.instance = (LangIterator) instance;
+                return bound;
+            }
+        }
+
+        static class Next extends NativeFunction {
+            private LangIterator instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.next(interpreter, null);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangIterator)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected iterator.");
+                }
+                Next bound = copy();
+                bound.instance = (LangIterator) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class FileFunction {
+        static class ReadFile extends NativeFunction {
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return FileIO.readFile(FileIO.path(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class WriteFile extends NativeFunction {
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                FileIO.writeFile(FileIO.path(arguments.get(0)), TinkerScript.stringify(arguments.get(1)), false);
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class AppendFile extends NativeFunction {
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                FileIO.writeFile(FileIO.path(arguments.get(0)), TinkerScript.stringify(arguments.get(1)), true);
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Lines extends NativeFunction {
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangClass klass = (LangClass) interpreter.globals.get("Iterator");
+                return FileIO.lines(klass, FileIO.path(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Size extends NativeFunction {
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return (double) FileIO.size(FileIO.path(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class CopyFile extends NativeFunction {
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return (double) FileIO.copyFile(FileIO.path(arguments.get(0)), FileIO.path(arguments.get(1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+    }
+
+    static class CsvFunction {
+        static class Reader extends NativeFunction {
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 2);
+                Csv.Options options = Csv.Options.from(optionalArgument(arguments, 1));
+                LangClass iteratorClass = (LangClass) interpreter.globals.get("Iterator");
+                LangClass arrayClass = (LangClass) interpreter.globals.get("Array");
+                return Csv.reader(iteratorClass, arrayClass, FileIO.path(arguments.get(0)), options);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Writer extends NativeFunction {
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 2);
+                Csv.Options options = Csv.Options.from(optionalArgument(arguments, 1));
+                LangClass writerClass = (LangClass) interpreter.globals.get("CsvWriter");
+                return Csv.writer(writerClass, FileIO.path(arguments.get(0)), options);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class WriteRow extends NativeFunction {
+            private Csv.Writer instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                if (!(arguments.get(0) instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid argument type. Expected array.");
+                }
+                instance.writeRow(((LangArray) arguments.get(0)).elements);
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof Csv.Writer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected CSV writer.");
+                }
+                WriteRow bound = copy();
+                bound.instance = (Csv.Writer) instance;
+                return bound;
+            }
+        }
+
+        static class Flush extends NativeFunction {
+            private Csv.Writer instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.flush();
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof Csv.Writer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected CSV writer.");
+                }
+                CsvFunction.Flush bound = copy();
+                bound.instance = (Csv.Writer) instance;
+                return bound;
+            }
+        }
+
+        static class Close extends NativeFunction {
+            private Csv.Writer instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                instance.close();
+                return null;
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof Csv.Writer)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected CSV writer.");
+                }
+                Close bound = copy();
+                bound.instance = (Csv.Writer) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class JsonFunction {
+        static class Parse extends NativeFunction {
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                if (!(arguments.get(0) instanceof CharSequence)) {
+                    throw new RuntimeError(null, "Invalid argument type. Expected string.");
+                }
+                return Json.parse(interpreter, (CharSequence) arguments.get(0));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Stringify extends NativeFunction {
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 2);
+                int indent = 0;
+                if (arguments.size() == 2) {
+                    Object argument = arguments.get(1);
+                    if (!(argument instanceof Double) || (double) argument != Math.rint((double) argument)
+                            || (double) argument < 0 || (double) argument > 10) {
+                        throw new RuntimeError(null, "Invalid indent. Expected integer between 0 and 10.");
+                    }
+                    indent = (int) (double) argument;
+                }
+                return Json.stringify(arguments.get(0), indent);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Stream extends NativeFunction {
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return Json.stream(interpreter, FileIO.path(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+    }
+
+    static class RegexFunction {
+        static class Match extends NativeFunction {
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 2, 3);
+                Pattern pattern = Regex.pattern(arguments.get(0), optionalArgument(arguments, 2));
+                LangClass matchClass = (LangClass) interpreter.globals.get("Match");
+                LangClass arrayClass = (LangClass) interpreter.globals.get("Array");
+                return Regex.match(matchClass, arrayClass, pattern, Regex.text(arguments.get(1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class MatchAll extends NativeFunction {
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 2, 3);
+                Pattern pattern = Regex.pattern(arguments.get(0), optionalArgument(arguments, 2));
+                LangClass iteratorClass = (LangClass) interpreter.globals.get("Iterator");
+                LangClass matchClass = (LangClass) interpreter.globals.get("Match");
+                LangClass arrayClass = (LangClass) interpreter.globals.get("Array");
+                return new Regex.MatchIterator(iteratorClass, matchClass, arrayClass, pattern,
+                        Regex.text(arguments.get(1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Replace extends NativeFunction {
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 3, 4);
+                Pattern pattern = Regex.pattern(arguments.get(0), optionalArgument(arguments, 3));
+                return Regex.replace(pattern, Regex.text(arguments.get(1)), arguments.get(2));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Split extends NativeFunction {
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 2, 3);
+                Pattern pattern = Regex.pattern(arguments.get(0), optionalArgument(arguments, 2));
+                LangClass arrayClass = (LangClass) interpreter.globals.get("Array");
+                return Regex.split(arrayClass, pattern, Regex.text(arguments.get(1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+    }
+
+    static class MatchFunction {
+        static class Group extends NativeFunction {
+            private Regex.LangMatch instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 0, 1);
+                Object index = optionalArgument(arguments, 0);
+                if (index == null) {
+                    return instance.group(0);
+                }
+                if (!(index instanceof Double) || (double) index != Math.rint((double) index)) {
+                    throw new RuntimeError(null, "Invalid argument type. Expected integer.");
+                }
+                return instance.group((int) (double) index);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof Regex.LangMatch)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected match.");
+                }
+                Group bound = copy();
+                bound.instance = (Regex.LangMatch) instance;
+                return bound;
+            }
+        }
+
+        static class Groups extends NativeFunction {
+            private Regex.LangMatch instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.groups();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof Regex.LangMatch)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected match.");
+                }
+                Groups bound = copy();
+                bound.instance = (Regex.LangMatch) instance;
+                return bound;
+            }
+        }
+
+        static class Start extends NativeFunction {
+            private Regex.LangMatch instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return (double) instance.start();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof Regex.LangMatch)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected match.");
+                }
+                Start bound = copy();
+                bound.instance = (Regex.LangMatch) instance;
+                return bound;
+            }
+        }
+
+        static class End extends NativeFunction {
+            private Regex.LangMatch instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return (double) instance.end();
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof Regex.LangMatch)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected match.");
+                }
+                End bound = copy();
+                bound.instance = (Regex.LangMatch) instance;
+                return bound;
+            }
+        }
+    }
+
+    static class StringFunction {
+        static class IndexOf extends NativeFunction {
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 2, 3);
+                int from = arguments.size() == 3 ? Strings.integer(arguments.get(2)) : 0;
+                return (double) Strings.indexOf(Strings.string(arguments.get(0)), Strings.string(arguments.get(1)),
+                        from);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class LastIndexOf extends NativeFunction {
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return (double) Strings.lastIndexOf(Strings.string(arguments.get(0)),
+                        Strings.string(arguments.get(1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Split extends NativeFunction {
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangClass arrayClass = (LangClass) interpreter.globals.get("Array");
+                return new LangArray(arrayClass,
+                        Strings.split(Strings.string(arguments.get(0)), Strings.string(arguments.get(1))));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Join extends NativeFunction {
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                if (!(arguments.get(0) instanceof LangArray)) {
+                    throw new RuntimeError(null, "Invalid argument type. Expected array.");
+                }
+                return Strings.join(((LangArray) arguments.get(0)).elements, Strings.string(arguments.get(1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class Trim extends NativeFunction {
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return Strings.trim(Strings.string(arguments.get(0)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class StartsWith extends NativeFunction {
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return Strings.startsWith(Strings.string(arguments.get(0)), Strings.string(arguments.get(1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class EndsWith extends NativeFunction {
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return Strings.endsWith(Strings.string(arguments.get(0)), Strings.string(arguments.get(1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class CharCodeAt extends NativeFunction {
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                CharSequence text = Strings.string(arguments.get(0));
+                int index = Strings.integer(arguments.get(1));
+                if (index < 0 || index >= text.length()) {
+                    throw new RuntimeError(null, "Index " + index + " out of range.");
+                }
+                return (double) text.charAt(index);
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
+        }
+
+        static class FromCharCode extends NativeFunction {
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                TextBuffer buffer = new TextBuffer(arguments.size());
+                for (Object argument : arguments) {
+                    int code = Strings.integer(argument);
+                    if (code < 0 || code > Character.MAX_VALUE) {
+                        throw new RuntimeError(null, "Invalid character code " + code + ".");
+                    }
+                    buffer.append((char) code);
+                }
+                return arguments.size() == 1 ? Strings.character(buffer.toString().charAt(0)) : buffer.toString();
+            }
 
-        @Override
-        public Object call(Interpreter interpreter, List<Object> arguments) {
-            Object instance = arguments.get(0);
-            if (!(instance instanceof LangArray)) {
-                throw new RuntimeError(null, "Invalid argument type. Expected array.");
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
             }
-            return (double) ((LangArray) instance).elements.size();
         }
 
-        @Override
-        public LangFunction bind(LangInstance instance) {
-            return this;
+        static class Repeat extends NativeFunction {
+            @Override
+            public int arity() {
+                return 2;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return Strings.repeat(Strings.string(arguments.get(0)), Strings.integer(arguments.get(1)));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                return this;
+            }
         }
     }
 
-    // clock
-    static class Clock extends NativeFunction {
-        @Override
-        public int arity() {
-            return 0;
+    static class SeqFunction {
+        static class MapValues extends NativeFunction {
+
+            private LangSeq instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangCallable function = Callback.check(arguments.get(0), 1, "Callback");
+                return instance.then(new LangSeq.Stage(LangSeq.Kind.MAP, function, 0));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSeq)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected sequence.");
+                }
+                MapValues bound = copy();
+                bound.instance = (LangSeq) instance;
+                return bound;
+            }
         }
 
-        @Override
-        public Object call(Interpreter interpreter, List<Object> arguments) {
-            return (double) System.currentTimeMillis() / 1000.0;
+        static class Filter extends NativeFunction {
+
+            private LangSeq instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                LangCallable function = Callback.check(arguments.get(0), 1, "Callback");
+                return instance.then(new LangSeq.Stage(LangSeq.Kind.FILTER, function, 0));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSeq)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected sequence.");
+                }
+                Filter bound = copy();
+                bound.instance = (LangSeq) instance;
+                return bound;
+            }
         }
 
-        @Override
-        public LangFunction bind(LangInstance instance) {
-            return this;
+        static class Take extends NativeFunction {
+
+            private LangSeq instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                Object count = arguments.get(0);
+                if (!(count instanceof Double) || (double) count != Math.rint((double) count) || (double) count < 0) {
+                    throw new RuntimeError(null, "Invalid argument type. Expected non-negative integer.");
+                }
+                return instance.then(new LangSeq.Stage(LangSeq.Kind.TAKE, null, (long) (double) count));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSeq)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected sequence.");
+                }
+                Take bound = copy();
+                bound.instance = (LangSeq) instance;
+                return bound;
+            }
         }
-    }
 
-    static class ArrayFunction {
-        static class Push extends NativeFunction {
+        static class ToArray extends NativeFunction {
 
-            private LangArray instance;
+            private LangSeq instance;
+
+            @Override
+            public int arity() {
+                return 0;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.toArray(interpreter, (LangClass) interpreter.globals.get("Array"));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSeq)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected sequence.");
+                }
+                ToArray bound = copy();
+                bound.instance = (LangSeq) instance;
+                return bound;
+            }
+        }
+
+        static class Reduce extends NativeFunction {
+
+            private LangSeq instance;
+
+            @Override
+            public int arity() {
+                return -1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                checkArgumentCount(arguments, 1, 2);
+                Callback callback = new Callback(interpreter, arguments.get(0), 2, "Callback");
+                return instance.reduce(interpreter, callback, arguments.size() == 2, optionalArgument(arguments, 1),
+                        "sequence");
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSeq)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected sequence.");
+                }
+                Reduce bound = copy();
+                bound.instance = (LangSeq) instance;
+                return bound;
+            }
+        }
+
+        static class ForEach extends NativeFunction {
+
+            private LangSeq instance;
 
             @Override
             public int arity() {
@@ -58,24 +2919,74 @@ public abstract class NativeFunction implements LangFunction {
 
             @Override
             public Object call(Interpreter interpreter, List<Object> arguments) {
-                Object value = arguments.get(0);
-                instance.push(value);
+                instance.forEach(interpreter, new Callback(interpreter, arguments.get(0), 1, "Callback"));
                 return null;
             }
 
             @Override
             public LangFunction bind(LangInstance instance) {
-                if (!(instance instanceof LangArray)) {
-                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                if (!(instance instanceof LangSeq)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected sequence.");
                 }
-                this.instance = (LangArray) instance;
-                return this;
+                ForEach bound = copy();
+                bound.instance = (LangSeq) instance;
+                return bound;
             }
         }
 
-        static class Pop extends NativeFunction {
+        static class Some extends NativeFunction {
 
-            private LangArray instance;
+            private LangSeq instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.some(interpreter, new Callback(interpreter, arguments.get(0), 1, "Callback"));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSeq)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected sequence.");
+                }
+                Some bound = copy();
+                bound.instance = (LangSeq) instance;
+                return bound;
+            }
+        }
+
+        static class Every extends NativeFunction {
+
+            private LangSeq instance;
+
+            @Override
+            public int arity() {
+                return 1;
+            }
+
+            @Override
+            public Object call(Interpreter interpreter, List<Object> arguments) {
+                return instance.every(interpreter, new Callback(interpreter, arguments.get(0), 1, "Callback"));
+            }
+
+            @Override
+            public LangFunction bind(LangInstance instance) {
+                if (!(instance instanceof LangSeq)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected sequence.");
+                }
+                Every bound = copy();
+                bound.instance = (LangSeq) instance;
+                return bound;
+            }
+        }
+
+        static class Count extends NativeFunction {
+
+            private LangSeq instance;
 
             @Override
             public int arity() {
@@ -84,23 +2995,23 @@ public abstract class NativeFunction implements LangFunction {
 
             @Override
             public Object call(Interpreter interpreter, List<Object> arguments) {
-                return instance.pop();
+                return (double) instance.count(interpreter);
             }
 
             @Override
             public LangFunction bind(LangInstance instance) {
-                if (!(instance instanceof LangArray)) {
-                    throw new RuntimeError(null, "Invalid instance. Expected array.");
+                if (!(instance instanceof LangSeq)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected sequence.");
                 }
-                this.instance = (LangArray) instance;
-                return this;
+                Count bound = copy();
+                bound.instance = (LangSeq) instance;
+                return bound;
             }
         }
-    }
 
-    static class MapFunction {
-        static class Keys extends NativeFunction {
-            private LangMapInstance instance;
+        static class First extends NativeFunction {
+
+            private LangSeq instance;
 
             @Override
             public int arity() {
@@ -109,24 +3020,25 @@ public abstract class NativeFunction implements LangFunction {
 
             @Override
             public Object call(Interpreter interpreter, List<Object> arguments) {
-                LangClass klass = (LangClass) interpreter.globals.get("Array");
-                LangArray array = new LangArray(klass, instance.getKeys());
-                return array;
+                return instance.first(interpreter);
             }
 
             @Override
             public LangFunction bind(LangInstance instance) {
-                if (!(instance instanceof LangMapInstance)) {
-                    throw new RuntimeError(null, "Invalid instance. Expected map.");
+                if (!(instance instanceof LangSeq)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected sequence.");
                 }
-                this.instance = (LangMapInstance) instance;
-                return this;
+                First bound = copy();
+                bound.instance = (LangSeq) instance;
+                return bound;
             }
         }
+    }
 
-        static class Values extends NativeFunction {
+    static class RangeFunction {
+        static class Seq extends NativeFunction {
 
-            private LangMapInstance instance;
+            private LangRange instance;
 
             @Override
             public int arity() {
@@ -135,18 +3047,17 @@ public abstract class NativeFunction implements LangFunction {
 
             @Override
             public Object call(Interpreter interpreter, List<Object> arguments) {
-                LangClass klass = (LangClass) interpreter.globals.get("Array");
-                LangArray array = new LangArray(klass, instance.getValues());
-                return array;
+                return LangSeq.of((LangClass) interpreter.globals.get("Seq"), instance);
             }
 
             @Override
             public LangFunction bind(LangInstance instance) {
-                if (!(instance instanceof LangMapInstance)) {
-                    throw new RuntimeError(null, "Invalid instance. Expected map.");
+                if (!(instance instanceof LangRange)) {
+                    throw new RuntimeError(null, "Invalid instance. Expected range.");
                 }
-                this.instance = (LangMapInstance) instance;
-                return this;
+                Seq bound = copy();
+                bound.instance = (LangRange) instance;
+                return bound;
             }
         }
     }
@@ -159,10 +3070,10 @@ public abstract class NativeFunction implements LangFunction {
 
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
-            if (!(arguments.get(0) instanceof String)) {
+            if (!(arguments.get(0) instanceof CharSequence)) {
                 throw new RuntimeError(null, "Invalid argument type. Expected string.");
             }
-            return (double) ((String) arguments.get(0)).length();
+            return (double) ((CharSequence) arguments.get(0)).length();
         }
 
         @Override
@@ -180,15 +3091,67 @@ public abstract class NativeFunction implements LangFunction {
 
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
-            try {
-                if (arguments.size() > 0 && (arguments.get(0) instanceof String)) {
-                    System.out.print(arguments.get(0));
-                }
-                String input = new BufferedReader(new InputStreamReader(System.in)).readLine();
-                return input;
-            } catch (Exception e) {
-                throw new RuntimeError(null, "Error reading input.");
+            if (arguments.size() > 0 && (arguments.get(0) instanceof CharSequence)) {
+                interpreter.output.print((CharSequence) arguments.get(0));
             }
+            interpreter.output.flush();
+            return interpreter.input.readLine();
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    static class ReadLines extends NativeFunction {
+        @Override
+        public int arity() {
+            return 0;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            interpreter.output.flush();
+            LangClass klass = (LangClass) interpreter.globals.get("Array");
+            return new LangArray(klass, interpreter.input.readLines());
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    static class ReadAll extends NativeFunction {
+        @Override
+        public int arity() {
+            return 0;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            interpreter.output.flush();
+            return interpreter.input.readAll();
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    static class StdinLines extends NativeFunction {
+        @Override
+        public int arity() {
+            return 0;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            interpreter.output.flush();
+            LangClass klass = (LangClass) interpreter.globals.get("Iterator");
+            return new LangIterator.LineIterator(klass, interpreter.input.reader());
         }
 
         @Override
@@ -207,14 +3170,14 @@ public abstract class NativeFunction implements LangFunction {
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
             Object instance = arguments.get(0);
-            if (!(instance instanceof String)) {
+            if (!(instance instanceof CharSequence)) {
                 throw new RuntimeError(null, "Invalid argument type. Expected string.");
             }
-            try {
-                return Double.parseDouble((String) instance);
-            } catch (NumberFormatException e) {
+            Double number = NumberCodec.parse((CharSequence) instance);
+            if (number == null) {
                 throw new RuntimeError(null, "Cannot convert to number.");
             }
+            return number;
         }
 
         @Override
@@ -254,12 +3217,7 @@ public abstract class NativeFunction implements LangFunction {
 
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
-            List<String> strings = new ArrayList<>();
-            for (Object arg : arguments) {
-                strings.add(TinkerScript.stringify(arg));
-            }
-            String formattedString = String.join(" ", strings);
-            System.out.print(formattedString);
+            interpreter.output.print(arguments);
             return null;
         }
 
@@ -278,12 +3236,26 @@ public abstract class NativeFunction implements LangFunction {
 
         @Override
         public Object call(Interpreter interpreter, List<Object> arguments) {
-            List<String> strings = new ArrayList<>();
-            for (Object arg : arguments) {
-                strings.add(TinkerScript.stringify(arg));
-            }
-            String formattedString = String.join(" ", strings);
-            System.out.println(formattedString);
+            interpreter.output.println(arguments);
+            return null;
+        }
+
+        @Override
+        public LangFunction bind(LangInstance instance) {
+            return this;
+        }
+    }
+
+    // flush
+    static class Flush extends NativeFunction {
+        @Override
+        public int arity() {
+            return 0;
+        }
+
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            interpreter.output.flush();
             return null;
         }
 
@@ -304,18 +3276,19 @@ public abstract class NativeFunction implements LangFunction {
 
             @Override
             public Object call(Interpreter interpreter, List<Object> arguments) {
-                if (!(arguments.get(0) instanceof String)) {
+                if (!(arguments.get(0) instanceof CharSequence)) {
                     throw new RuntimeError(null, "Invalid message type. Expected string.");
                 }
-                String message = (String) arguments.get(0);
+                String message = arguments.get(0).toString();
                 instance.set("message", message);
                 return instance;
             }
 
             @Override
             public LangFunction bind(LangInstance instance) {
-                this.instance = instance;
-                return this;
+                ErrorConstructor bound = copy();
+                bound.instance = instance;
+                return bound;
             }
         }
     }
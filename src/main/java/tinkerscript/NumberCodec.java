@@ -0,0 +1,197 @@
+package tinkerscript;
+
+/*
+ * Formatting and parsing of numbers. Output matches what Double.toString
+ * gives with a trailing ".0" removed, but common values are written without
+ * going through it.
+ */
+class NumberCodec {
+    // enough room for any number this class writes itself
+    static final int MAX_LENGTH = 32;
+    // longest fraction tried when looking for the shortest plain form
+    private static final int MAX_FRACTION_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = new double[MAX_FRACTION_DIGITS + 1];
+    // 2^53, above which not every integer is a double
+    private static final long MAX_EXACT = 1L << 53;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    static String format(double number) {
+        char[] chars = new char[MAX_LENGTH];
+        int length = write(number, chars, 0);
+        if (length < 0) {
+            return fallback(number);
+        }
+        return new String(chars, 0, length);
+    }
+
+    /*
+     * Writes the number into the array, which needs MAX_LENGTH free chars
+     * from the offset. Returns the new offset, or -1 when the number has to be
+     * formatted by Double.toString (see fallback).
+     */
+    static int write(double number, char[] out, int offset) {
+        // Double.toString uses plain notation for magnitudes in [10^-3, 10^7)
+        double magnitude = Math.abs(number);
+        if (number == (long) number && magnitude < 1e7) {
+            if (number == 0 && 1 / number < 0) {
+                out[offset] = '-';
+                out[offset + 1] = '0';
+                return offset + 2;
+            }
+            return writeLong((long) number, out, offset);
+        }
+        if (!(magnitude >= 1e-3 && magnitude < 1e7)) {
+            return -1;
+        }
+        for (int digits = 1; digits <= MAX_FRACTION_DIGITS; digits++) {
+            double power = POWERS_OF_TEN[digits];
+            double scaled = Math.floor(magnitude * power);
+            if (scaled + 1 >= MAX_EXACT) {
+                return -1;
+            }
+            // the product may be rounded either way, so try both neighbours
+            for (long candidate = (long) scaled; candidate <= (long) scaled + 1; candidate++) {
+                if (candidate / power == magnitude) {
+                    if (number < 0) {
+                        out[offset++] = '-';
+                    }
+                    return writeFixed(candidate, digits, out, offset);
+                }
+            }
+        }
+        return -1;
+    }
+
+    static String fallback(double number) {
+        String text = Double.toString(number);
+        if (text.endsWith(".0")) {
+            return text.substring(0, text.length() - 2);
+        }
+        return text;
+    }
+
+    private static int writeLong(long number, char[] out, int offset) {
+        if (number < 0) {
+            out[offset++] = '-';
+            number = -number;
+        }
+        int digits = 1;
+        for (long rest = number / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        return offset + digits;
+    }
+
+    // writes value / 10^fractionDigits with exactly that many fraction digits
+    private static int writeFixed(long value, int fractionDigits, char[] out, int offset) {
+        long power = (long) POWERS_OF_TEN[fractionDigits];
+        offset = writeLong(value / power, out, offset);
+        out[offset++] = '.';
+        long fraction = value % power;
+        for (int i = offset + fractionDigits - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        return offset + fractionDigits;
+    }
+
+    /*
+     * Parses a decimal number such as "-12", "3.5" or "1e-3", as well as
+     * "NaN" and "Infinity". Surrounding whitespace is ignored. Returns null
+     * when the text is not a number.
+     */
+    static Double parse(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        int position = start;
+        boolean negative = false;
+        char sign = text.charAt(position);
+        if (sign == '-' || sign == '+') {
+            negative = sign == '-';
+            position++;
+        }
+        // plain integers that fit in a long without losing precision
+        int digitsStart = position;
+        long integer = 0;
+        while (position < end && position - digitsStart < 16 && isDigit(text.charAt(position))) {
+            integer = integer * 10 + (text.charAt(position) - '0');
+            position++;
+        }
+        if (position == end && position > digitsStart) {
+            if (integer == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            return (double) (negative ? -integer : integer);
+        }
+        position = digitsStart;
+        String rest = text.subSequence(position, end).toString();
+        if (rest.equals("NaN")) {
+            return Double.NaN;
+        }
+        if (rest.equals("Infinity")) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        if (!isDecimal(text, position, end)) {
+            return null;
+        }
+        return Double.parseDouble(text.subSequence(start, end).toString());
+    }
+
+    // digits, an optional fraction and an optional exponent
+    private static boolean isDecimal(CharSequence text, int position, int end) {
+        int integerDigits = 0;
+        while (position < end && isDigit(text.charAt(position))) {
+            position++;
+            integerDigits++;
+        }
+        int fractionDigits = 0;
+        if (position < end && text.charAt(position) == '.') {
+            position++;
+            while (position < end && isDigit(text.charAt(position))) {
+                position++;
+                fractionDigits++;
+            }
+        }
+        if (integerDigits + fractionDigits == 0) {
+            return false;
+        }
+        if (position < end && (text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+            position++;
+            if (position < end && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+                position++;
+            }
+            int exponentDigits = 0;
+            while (position < end && isDigit(text.charAt(position))) {
+                position++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return false;
+            }
+        }
+        return position == end;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,100 @@
+package tinkerscript;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/*
+ * Console output of an interpreter. print() and println() write into a
+ * reusable buffer which is handed to System.out in large chunks.
+ *
+ * The buffer is always flushed when the program finishes, before reading
+ * input, before a runtime error is reported and on an explicit flush(). In
+ * addition, the THRESHOLD policy flushes whenever the buffer grows beyond
+ * its capacity and the LINE policy flushes after every line.
+ */
+class OutputBuffer {
+    enum FlushPolicy {
+        THRESHOLD,
+        LINE
+    }
+
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final TextBuffer buffer;
+    private final int capacity;
+    private final FlushPolicy policy;
+
+    OutputBuffer(int capacity, FlushPolicy policy) {
+        this.buffer = new TextBuffer(capacity);
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /*
+     * Creates the buffer described by the tinkerscript.output.flush ("threshold"
+     * or "line") and tinkerscript.output.buffer (capacity in characters) system
+     * properties.
+     */
+    static OutputBuffer fromSystemProperties() {
+        FlushPolicy policy = FlushPolicy.THRESHOLD;
+        if ("line".equalsIgnoreCase(System.getProperty("tinkerscript.output.flush"))) {
+            policy = FlushPolicy.LINE;
+        }
+        int capacity = DEFAULT_CAPACITY;
+        String size = System.getProperty("tinkerscript.output.buffer");
+        if (size != null) {
+            try {
+                capacity = Math.max(1, Integer.parseInt(size.trim()));
+            } catch (NumberFormatException e) {
+                capacity = DEFAULT_CAPACITY;
+            }
+        }
+        return new OutputBuffer(capacity, policy);
+    }
+
+    synchronized void print(List<Object> values) {
+        int start = buffer.length();
+        write(values);
+        afterWrite(start);
+    }
+
+    synchronized void println(List<Object> values) {
+        write(values);
+        buffer.append('\n');
+        if (policy == FlushPolicy.LINE || buffer.length() >= capacity) {
+            flush();
+        }
+    }
+
+    synchronized void print(CharSequence text) {
+        int start = buffer.length();
+        buffer.append(text);
+        afterWrite(start);
+    }
+
+    private void write(List<Object> values) {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                buffer.append(' ');
+            }
+            buffer.appendValue(values.get(i));
+        }
+    }
+
+    private void afterWrite(int start) {
+        if (buffer.length() >= capacity || (policy == FlushPolicy.LINE && buffer.contains('\n', start))) {
+            flush();
+        }
+    }
+
+    synchronized void flush() {
+        // System.out is looked up on every flush so that redirections made
+        // after the interpreter was created are honoured
+        PrintStream out = System.out;
+        if (buffer.length() > 0) {
+            out.print(buffer.toString());
+            buffer.clear();
+        }
+        out.flush();
+    }
+}
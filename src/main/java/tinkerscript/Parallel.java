@@ -0,0 +1,111 @@
+package tinkerscript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+ * Array operations that split the work across the common fork-join pool.
+ * Every chunk runs the callback on its own forked interpreter. A callback is
+ * split up only when Interpreter.isParallelSafe finds the resolver has not
+ * classified it effectful; effectful callbacks and small arrays are processed
+ * on the calling thread instead, with the same result.
+ */
+class Parallel {
+    // fewer elements than this per chunk are not worth a task
+    static final int MIN_CHUNK_SIZE = 256;
+
+    interface ChunkTask<T> {
+        T run(Callback callback, Object[] elements, int from, int to);
+    }
+
+    static <T> List<T> run(Interpreter interpreter, Object function, int arity, List<Object> source,
+            ChunkTask<T> task) {
+        // checks the callback before any work is split up
+        Callback callback = new Callback(interpreter, function, arity, "Callback");
+        Object[] elements = source.toArray();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int chunks = Math.min(pool.getParallelism() * 4, elements.length / MIN_CHUNK_SIZE);
+        if (chunks <= 1 || !interpreter.isParallelSafe(function)) {
+            return Collections.singletonList(task.run(callback, elements, 0, elements.length));
+        }
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = (int) ((long) elements.length * i / chunks);
+            int to = (int) ((long) elements.length * (i + 1) / chunks);
+            tasks.add(ForkJoinTask.adapt(
+                    () -> task.run(new Callback(interpreter.fork(), function, arity, "Callback"), elements, from, to)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        List<T> results = new ArrayList<>(chunks);
+        for (ForkJoinTask<T> chunk : tasks) {
+            results.add(chunk.join());
+        }
+        return results;
+    }
+
+    static LangArray map(Interpreter interpreter, LangArray array, Object function) {
+        Object[] results = new Object[array.elements.size()];
+        run(interpreter, function, 1, array.elements, (callback, elements, from, to) -> {
+            for (int i = from; i < to; i++) {
+                results[i] = callback.call(elements[i]);
+            }
+            return null;
+        });
+        return new LangArray(array.klass, Arrays.asList(results));
+    }
+
+    static LangArray filter(Interpreter interpreter, LangArray array, Object function) {
+        List<List<Object>> chunks = run(interpreter, function, 1, array.elements, (callback, elements, from, to) -> {
+            List<Object> kept = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                if (callback.test(elements[i])) {
+                    kept.add(elements[i]);
+                }
+            }
+            return kept;
+        });
+        RingList results = new RingList();
+        for (List<Object> chunk : chunks) {
+            results.addAll(chunk);
+        }
+        LangArray result = new LangArray(array.klass, List.of());
+        result.elements = results;
+        return result;
+    }
+
+    /*
+     * Each chunk is reduced on its own and the chunk results are then combined
+     * in order, so the function has to be associative.
+     */
+    static Object reduce(Interpreter interpreter, LangArray array, Object function, boolean hasInitial,
+            Object initial) {
+        List<Object[]> chunks = run(interpreter, function, 2, array.elements, (callback, elements, from, to) -> {
+            if (from == to) {
+                return null;
+            }
+            Object accumulator = elements[from];
+            for (int i = from + 1; i < to; i++) {
+                accumulator = callback.call(accumulator, elements[i]);
+            }
+            return new Object[] {accumulator};
+        });
+        Callback callback = new Callback(interpreter, function, 2, "Callback");
+        boolean empty = !hasInitial;
+        Object result = initial;
+        for (Object[] chunk : chunks) {
+            if (chunk == null) {
+                continue;
+            }
+            result = empty ? chunk[0] : callback.call(result, chunk[0]);
+            empty = false;
+        }
+        if (empty) {
+            throw new RuntimeError(null, "Can't reduce an empty array without an initial value.");
+        }
+        return result;
+    }
+}
@@ -204,6 +204,9 @@ public class Parser {
 
     private Stmt forLoop() {
         consume(LEFT_PAREN, "Expected (.");
+        if (checkForInLoop()) {
+            return forInLoop();
+        }
         Stmt initializer;
         if (match(SEMICOLON)) {
             initializer = null;
@@ -231,6 +234,16 @@ public class Parser {
         return new Stmt.For(initializer, condition, increment, body);
     }
 
+    private Stmt forInLoop() {
+        match(VAR);
+        Token name = consume(IDENTIFIER, "Expected variable name.");
+        Token keyword = consume(IN, "Expected 'in'.");
+        Expr iterable = expression();
+        consume(RIGHT_PAREN, "Expected ).");
+        Stmt body = statement();
+        return new Stmt.ForIn(name, keyword, iterable, body);
+    }
+
     private Stmt whileStatement() {
         consume(LEFT_PAREN, "Expected (.");
         Expr condition = expression();
@@ -829,6 +842,13 @@ public class Parser {
         return check(VAR) || (check(IDENTIFIER) && checkNext(COLON_EQUAL));
     }
 
+    /*
+     * Check if the for loop header is of the form (var x in ...) or (x in ...)
+     */
+    private boolean checkForInLoop() {
+        return (check(VAR) && checkNext(IDENTIFIER) && checkNext(IN, 2)) || (check(IDENTIFIER) && checkNext(IN));
+    }
+
     /*
      * Check if the current token is a compound assignment operator += , -=, *=, /=
      * , ||=, &&=, |=, &=, ^=
@@ -0,0 +1,16 @@
+package tinkerscript;
+
+/*
+ * What the resolver found a function or lambda can do when called, from least
+ * to most effect. PURE functions only read their arguments and assign their
+ * own locals. LOCAL functions also change arrays, maps or objects they create
+ * themselves. EFFECTFUL functions may change state visible to the caller,
+ * perform I/O or call something the resolver can't see into.
+ */
+enum Purity {
+    PURE, LOCAL, EFFECTFUL;
+
+    Purity join(Purity other) {
+        return compareTo(other) >= 0 ? this : other;
+    }
+}
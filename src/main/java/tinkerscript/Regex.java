@@ -0,0 +1,210 @@
+package tinkerscript;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/*
+ * Regular expression support behind the Regex natives. Compiled patterns are
+ * kept in a bounded least-recently-used cache keyed by source and flags, so
+ * matching in a loop compiles each pattern once.
+ */
+class Regex {
+    static final int CACHE_SIZE = Integer.getInteger("tinkerscript.regex.cache", 64);
+
+    private static final Map<Key, Pattern> cache = new LinkedHashMap<Key, Pattern>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Pattern> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static final class Key {
+        final String source;
+        final int flags;
+
+        Key(String source, int flags) {
+            this.source = source;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return flags == key.flags && source.equals(key.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return source.hashCode() * 31 + flags;
+        }
+    }
+
+    static Pattern pattern(Object source, Object flags) {
+        if (!(source instanceof CharSequence)) {
+            throw new RuntimeError(null, "Invalid pattern. Expected string.");
+        }
+        Key key = new Key(source.toString(), flags(flags));
+        synchronized (cache) {
+            Pattern pattern = cache.get(key);
+            if (pattern == null) {
+                try {
+                    pattern = Pattern.compile(key.source, key.flags);
+                } catch (PatternSyntaxException e) {
+                    throw new RuntimeError(null, "Invalid regular expression: " + e.getDescription() + ".");
+                }
+                cache.put(key, pattern);
+            }
+            return pattern;
+        }
+    }
+
+    /*
+     * Flags are given as a string of letters: i (ignore case), m (multiline),
+     * s (dot matches line breaks) and x (comments).
+     */
+    private static int flags(Object flags) {
+        if (flags == null) {
+            return 0;
+        }
+        if (!(flags instanceof CharSequence)) {
+            throw new RuntimeError(null, "Invalid flags. Expected string.");
+        }
+        CharSequence text = (CharSequence) flags;
+        int result = 0;
+        for (int i = 0; i < text.length(); i++) {
+            switch (text.charAt(i)) {
+                case 'i':
+                    result |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+                    break;
+                case 'm':
+                    result |= Pattern.MULTILINE;
+                    break;
+                case 's':
+                    result |= Pattern.DOTALL;
+                    break;
+                case 'x':
+                    result |= Pattern.COMMENTS;
+                    break;
+                default:
+                    throw new RuntimeError(null, "Invalid flag '" + text.charAt(i) + "'.");
+            }
+        }
+        return result;
+    }
+
+    static CharSequence text(Object text) {
+        if (!(text instanceof CharSequence)) {
+            throw new RuntimeError(null, "Invalid argument type. Expected string.");
+        }
+        return text instanceof Rope ? text.toString() : (CharSequence) text;
+    }
+
+    static Object match(LangClass matchClass, LangClass arrayClass, Pattern pattern, CharSequence text) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? new LangMatch(matchClass, arrayClass, matcher.toMatchResult()) : null;
+    }
+
+    static String replace(Pattern pattern, CharSequence text, Object replacement) {
+        if (!(replacement instanceof CharSequence)) {
+            throw new RuntimeError(null, "Invalid replacement. Expected string.");
+        }
+        try {
+            return pattern.matcher(text).replaceAll(replacement.toString());
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new RuntimeError(null, "Invalid replacement: " + e.getMessage() + ".");
+        }
+    }
+
+    static LangArray split(LangClass arrayClass, Pattern pattern, CharSequence text) {
+        return new LangArray(arrayClass, List.of((Object[]) pattern.split(text, -1)));
+    }
+
+    /*
+     * A single match. The array of groups is only built when asked for.
+     */
+    static class LangMatch extends LangInstance {
+        private final LangClass arrayClass;
+        private final MatchResult result;
+        private LangArray groups;
+
+        LangMatch(LangClass klass, LangClass arrayClass, MatchResult result) {
+            super(klass);
+            this.arrayClass = arrayClass;
+            this.result = result;
+        }
+
+        Object group(int index) {
+            if (index < 0 || index > result.groupCount()) {
+                throw new RuntimeError(null, "Group " + index + " out of range.");
+            }
+            return result.group(index);
+        }
+
+        LangArray groups() {
+            if (groups == null) {
+                List<Object> values = new ArrayList<>(result.groupCount() + 1);
+                for (int i = 0; i <= result.groupCount(); i++) {
+                    values.add(result.group(i));
+                }
+                groups = new LangArray(arrayClass, values);
+            }
+            return groups;
+        }
+
+        int start() {
+            return result.start();
+        }
+
+        int end() {
+            return result.end();
+        }
+
+        @Override
+        public String toString() {
+            return "<match " + result.group() + ">";
+        }
+    }
+
+    /*
+     * Finds the next match only when it is asked for.
+     */
+    static class MatchIterator extends LangIterator {
+        private final LangClass matchClass;
+        private final LangClass arrayClass;
+        private final Matcher matcher;
+        private Boolean found;
+
+        MatchIterator(LangClass klass, LangClass matchClass, LangClass arrayClass, Pattern pattern, CharSequence text) {
+            super(klass);
+            this.matchClass = matchClass;
+            this.arrayClass = arrayClass;
+            this.matcher = pattern.matcher(text);
+        }
+
+        @Override
+        boolean hasNext(Interpreter interpreter) {
+            if (found == null) {
+                found = matcher.find();
+            }
+            return found;
+        }
+
+        @Override
+        Object next(Interpreter interpreter, Token token) {
+            if (!hasNext(interpreter)) {
+                throw new RuntimeError(token, "Iterator is exhausted.");
+            }
+            found = null;
+            return new LangMatch(matchClass, arrayClass, matcher.toMatchResult());
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package tinkerscript;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
@@ -34,6 +37,7 @@ import tinkerscript.Stmt.Class;
 import tinkerscript.Stmt.Continue;
 import tinkerscript.Stmt.Expression;
 import tinkerscript.Stmt.For;
+import tinkerscript.Stmt.ForIn;
 import tinkerscript.Stmt.Function;
 import tinkerscript.Stmt.If;
 import tinkerscript.Stmt.Return;
@@ -46,6 +50,25 @@ import tinkerscript.Stmt.While;
 public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     private final Stack<Map<String, Boolean>> scopes = new Stack<>();
+    // the fun or var statement that declared each name in scopes, if any
+    private final Stack<Map<String, Object>> declarations = new Stack<>();
+    // the block, loop, function or lambda whose environment holds each scope, if any
+    private final Stack<Object> owners = new Stack<>();
+    // functions being resolved, innermost last
+    private final List<FunctionInfo> functions = new ArrayList<>();
+    // every function resolved so far, by its Stmt.Function or Expr.Lambda
+    private final Map<Object, FunctionInfo> resolvedFunctions = new HashMap<>();
+    // declarations that are assigned to somewhere
+    private final java.util.Set<Object> reassigned = new HashSet<>();
+    // the first fun statement declaring each global name
+    private final Map<String, Stmt.Function> globalFunctions = new HashMap<>();
+    // global names declared in any other way or assigned, a call through them could reach anything
+    private final java.util.Set<String> otherGlobals = new HashSet<>();
+    // methods and getters of all classes, by name
+    private final Map<String, List<Stmt.Function>> methods = new HashMap<>();
+    private final Map<String, List<Stmt.Function>> getters = new HashMap<>();
+    // names assigned as fields anywhere, such a field may hold any function and hides a method
+    private final java.util.Set<String> fieldNames = new HashSet<>();
     private final Interpreter interpreter;
     public Boolean hadError = false;
 
@@ -72,6 +95,72 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         SWITCH
     }
 
+    /*
+     * Native functions, constructors and methods the purity analysis knows.
+     * Anything else called by name is assumed to be effectful.
+     */
+    private static final java.util.Set<String> PURE_GLOBALS = new HashSet<>(Arrays.asList(
+            "len", "strlen", "string", "number", "range",
+            "Set", "Vector", "StringBuilder", "PriorityQueue", "Buffer"));
+    // built-in classes; of their static methods only those in PURE_STATICS are pure
+    private static final java.util.Set<String> BUILT_IN_CLASSES = new HashSet<>(Arrays.asList(
+            "Array", "Map", "Iterator", "Range", "Seq", "StringBuilder", "Set", "PriorityQueue", "Buffer",
+            "Vector", "Memoized", "File", "CSV", "CsvWriter", "JSON", "Regex", "String", "Match", "Error"));
+    private static final java.util.Set<String> PURE_STATICS = new HashSet<>(Arrays.asList(
+            "String.indexOf", "String.lastIndexOf", "String.split", "String.join", "String.trim",
+            "String.startsWith", "String.endsWith", "String.charCodeAt", "String.fromCharCode", "String.repeat",
+            "Regex.match", "Regex.matchAll", "Regex.replace", "Regex.split", "JSON.parse", "JSON.stringify"));
+    // methods of built-in classes that don't change their receiver
+    private static final java.util.Set<String> READING_METHODS = new HashSet<>(Arrays.asList(
+            "get", "has", "size", "peek", "peekFirst", "peekLast", "keys", "values", "keyIterator",
+            "valueIterator", "entryIterator", "hasNext", "toArray", "toString", "length", "slice", "union",
+            "intersection", "difference", "dot", "sum", "min", "max", "mul", "scale", "group", "groups", "start",
+            "end", "readString", "stats", "seq", "take", "count", "first"));
+    // methods of built-in classes that change their receiver
+    private static final java.util.Set<String> MUTATING_METHODS = new HashSet<>(Arrays.asList(
+            "push", "pop", "shift", "unshift", "add", "remove", "clear", "set", "append", "appendLine", "fill",
+            "axpy", "next", "writeString"));
+    // methods of built-in classes that call the function given as first argument
+    private static final java.util.Set<String> CALLBACK_METHODS = new HashSet<>(Arrays.asList(
+            "map", "filter", "reduce", "forEach", "some", "every", "sort", "sortBy", "parallelMap",
+            "parallelFilter", "parallelReduce"));
+    // methods that run the stages of a sequence, which may call any function
+    private static final java.util.Set<String> SEQUENCE_TERMINALS = new HashSet<>(Arrays.asList(
+            "toArray", "reduce", "forEach", "some", "every", "count", "first"));
+    // constructors whose result is a new object the caller owns
+    private static final java.util.Set<String> FRESH_CONSTRUCTORS = new HashSet<>(Arrays.asList(
+            "Set", "Vector", "StringBuilder", "PriorityQueue", "Buffer"));
+
+    static {
+        for (LangBuffer.Type type : LangBuffer.Type.values()) {
+            READING_METHODS.add("read" + type);
+            MUTATING_METHODS.add("write" + type);
+        }
+    }
+
+    // an effect that can only be decided once the whole program is resolved, null for none
+    private interface Dependency {
+        Purity purity();
+    }
+
+    private static class FunctionInfo {
+        final Object node;
+        // index of the scope holding the parameters
+        final int scope;
+        final boolean initializer;
+        // what the body does itself, calls are recorded as dependencies
+        Purity purity = Purity.PURE;
+        final List<Dependency> dependencies = new ArrayList<>();
+        // the classification while the dependencies are being solved
+        Purity result;
+
+        FunctionInfo(Object node, int scope, boolean initializer) {
+            this.node = node;
+            this.scope = scope;
+            this.initializer = initializer;
+        }
+    }
+
     private ClassType currentClass = ClassType.NONE;
 
     private FunctionType currentFunction = FunctionType.NONE;
@@ -89,9 +178,13 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     }
 
     void resolve(List<Stmt> statements) {
+        boolean program = scopes.isEmpty();
         for (Stmt stmt : statements) {
             resolve(stmt);
         }
+        if (program) {
+            classifyFunctions();
+        }
     }
 
     void resolve(Stmt statement) {
@@ -103,20 +196,60 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     }
 
     void beginScope() {
+        beginScope(null);
+    }
+
+    void beginScope(Object owner) {
         scopes.push(new HashMap<String, Boolean>());
+        declarations.push(new HashMap<String, Object>());
+        owners.push(owner);
     }
 
     void endScope() {
         scopes.pop();
+        declarations.pop();
+        owners.pop();
+    }
+
+    /*
+     * A function, lambda or class created here keeps the current environment
+     * and all the ones enclosing it, so none of them can be reused once their
+     * scope is left.
+     */
+    private void captureScopes() {
+        for (Object owner : owners) {
+            if (owner instanceof Stmt.Block) {
+                ((Stmt.Block) owner).escapes = true;
+            } else if (owner instanceof Stmt.For) {
+                ((Stmt.For) owner).escapes = true;
+            } else if (owner instanceof Stmt.ForIn) {
+                ((Stmt.ForIn) owner).escapes = true;
+            } else if (owner instanceof Stmt.Function) {
+                ((Stmt.Function) owner).escapes = true;
+            } else if (owner instanceof Expr.Lambda) {
+                ((Expr.Lambda) owner).escapes = true;
+            }
+        }
     }
 
     void declare(Token name) {
-        if (scopes.isEmpty())
+        declare(name, null);
+    }
+
+    void declare(Token name, Object declaration) {
+        if (scopes.isEmpty()) {
+            if (declaration instanceof Stmt.Function && !globalFunctions.containsKey(name.lexeme)) {
+                globalFunctions.put(name.lexeme, (Stmt.Function) declaration);
+            } else {
+                otherGlobals.add(name.lexeme);
+            }
             return;
+        }
         if (scopes.peek().containsKey(name.lexeme)) {
             error(name, "Already a variable with this name in this scope.");
         }
         scopes.peek().put(name.lexeme, false);
+        declarations.peek().put(name.lexeme, declaration);
     }
 
     void define(Token name) {
@@ -125,6 +258,16 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         scopes.peek().put(name.lexeme, true);
     }
 
+    // index of the innermost scope declaring the name, -1 for globals
+    private int scopeOf(Token name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            if (scopes.get(i).containsKey(name.lexeme)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     void resolveLocal(Expr expr, Token name) {
         for (int i = scopes.size() - 1; i >= 0; i--) {
             if (scopes.get(i).containsKey(name.lexeme)) {
@@ -137,17 +280,326 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     void resolveFunction(Stmt.Function function, FunctionType functionType) {
         FunctionType enclosingFunction = currentFunction;
         currentFunction = functionType;
-        beginScope();
+        beginScope(function);
+        beginFunction(function, functionType == FunctionType.INITIALIZER);
 
         for (Token param : function.params) {
             declare(param);
             define(param);
         }
         resolve(function.body);
+        endFunction();
         endScope();
         currentFunction = enclosingFunction;
     }
 
+    private void beginFunction(Object function, boolean initializer) {
+        FunctionInfo info = new FunctionInfo(function, scopes.size() - 1, initializer);
+        functions.add(info);
+        resolvedFunctions.put(function, info);
+    }
+
+    private void endFunction() {
+        functions.remove(functions.size() - 1);
+    }
+
+    /*
+     * Every function being resolved that the assigned variable is declared
+     * outside of, either captured from an enclosing scope or global, is
+     * effectful. The declaration is remembered as reassigned, so calls through
+     * it are no longer known to reach the function it declared.
+     */
+    private void recordAssignment(Token name) {
+        int declaredIn = scopeOf(name);
+        for (int i = functions.size() - 1; i >= 0 && functions.get(i).scope > declaredIn; i--) {
+            functions.get(i).purity = Purity.EFFECTFUL;
+        }
+        if (declaredIn == -1) {
+            otherGlobals.add(name.lexeme);
+        } else if (declarations.get(declaredIn).get(name.lexeme) != null) {
+            reassigned.add(declarations.get(declaredIn).get(name.lexeme));
+        }
+    }
+
+    private void effect(Purity purity) {
+        if (!functions.isEmpty()) {
+            FunctionInfo function = functions.get(functions.size() - 1);
+            function.purity = function.purity.join(purity);
+        }
+    }
+
+    private void depend(Dependency dependency) {
+        if (!functions.isEmpty()) {
+            functions.get(functions.size() - 1).dependencies.add(dependency);
+        }
+    }
+
+    /*
+     * The classification of a function. Functions resolved in an earlier run
+     * of the resolver keep what was recorded on them then.
+     */
+    private Purity purityOf(Object function) {
+        FunctionInfo info = resolvedFunctions.get(function);
+        Purity purity = info != null ? info.result
+                : function instanceof Stmt.Function ? ((Stmt.Function) function).purity
+                        : ((Expr.Lambda) function).purity;
+        return purity == null ? Purity.EFFECTFUL : purity;
+    }
+
+    private Purity globalPurity(String name) {
+        if (otherGlobals.contains(name)) {
+            return Purity.EFFECTFUL;
+        }
+        if (globalFunctions.containsKey(name)) {
+            return purityOf(globalFunctions.get(name));
+        }
+        return PURE_GLOBALS.contains(name) ? Purity.PURE : Purity.EFFECTFUL;
+    }
+
+    private Purity purityOfAll(List<Stmt.Function> functions) {
+        Purity purity = Purity.PURE;
+        if (functions != null) {
+            for (Stmt.Function function : functions) {
+                purity = purity.join(purityOf(function));
+            }
+        }
+        return purity;
+    }
+
+    /*
+     * The function an expression evaluates to, if it is one the analysis can
+     * see into: a lambda, a function expression or a name declared by a fun
+     * statement that is never assigned. Returns null otherwise.
+     */
+    private Dependency knownFunction(Expr expr) {
+        if (expr instanceof Expr.Lambda) {
+            return () -> purityOf(expr);
+        }
+        if (expr instanceof Expr.Function) {
+            return () -> purityOf(((Expr.Function) expr).function);
+        }
+        if (!(expr instanceof Variable)) {
+            return null;
+        }
+        Token name = ((Variable) expr).name;
+        int declaredIn = scopeOf(name);
+        if (declaredIn == -1) {
+            return () -> otherGlobals.contains(name.lexeme) || !globalFunctions.containsKey(name.lexeme)
+                    ? null
+                    : purityOf(globalFunctions.get(name.lexeme));
+        }
+        Object declaration = declarations.get(declaredIn).get(name.lexeme);
+        if (!(declaration instanceof Stmt.Function)) {
+            return null;
+        }
+        return () -> reassigned.contains(declaration) ? Purity.EFFECTFUL : purityOf(declaration);
+    }
+
+    /*
+     * Changing an object is a local effect when the object is held in a
+     * variable of the innermost function that was initialised with a new
+     * array, map or built-in object and never assigned again, or when an
+     * initializer changes 'this'. Any other object may be seen by the caller.
+     */
+    private void recordMutation(Expr object) {
+        if (functions.isEmpty()) {
+            return;
+        }
+        FunctionInfo function = functions.get(functions.size() - 1);
+        if (object instanceof This) {
+            effect(function.initializer ? Purity.LOCAL : Purity.EFFECTFUL);
+            return;
+        }
+        Object declaration = newLocal(object);
+        if (declaration != null) {
+            depend(() -> reassigned.contains(declaration) ? Purity.EFFECTFUL : Purity.LOCAL);
+            return;
+        }
+        effect(Purity.EFFECTFUL);
+    }
+
+    /*
+     * The var statement of the innermost function that the expression names,
+     * if it was initialised with a new array, map or built-in object. Whether
+     * it is assigned again is only known once the program is resolved.
+     */
+    private Object newLocal(Expr expr) {
+        if (functions.isEmpty() || !(expr instanceof Variable)) {
+            return null;
+        }
+        Token name = ((Variable) expr).name;
+        int declaredIn = scopeOf(name);
+        Object declaration = declaredIn >= functions.get(functions.size() - 1).scope
+                ? declarations.get(declaredIn).get(name.lexeme)
+                : null;
+        return declaration instanceof Var && isNewObject(((Var) declaration).initializer) ? declaration : null;
+    }
+
+    private boolean isNewObject(Expr initializer) {
+        if (initializer instanceof Array || initializer instanceof Dictionary) {
+            return true;
+        }
+        if (initializer instanceof Call && ((Call) initializer).callee instanceof Variable) {
+            Token name = ((Variable) ((Call) initializer).callee).name;
+            return scopeOf(name) == -1 && FRESH_CONSTRUCTORS.contains(name.lexeme)
+                    && !globalFunctions.containsKey(name.lexeme) && !otherGlobals.contains(name.lexeme);
+        }
+        return false;
+    }
+
+    /*
+     * Looping over a new array, range or string can't be seen by the caller.
+     * Anything else may be an iterator, or an instance whose iterator(),
+     * hasNext() and next() methods run, and the loop advances it.
+     */
+    private void recordIteration(Expr iterable) {
+        if (iterable instanceof Array || iterable instanceof Literal) {
+            return;
+        }
+        if (iterable instanceof Call && ((Call) iterable).callee instanceof Variable) {
+            Token name = ((Variable) ((Call) iterable).callee).name;
+            if (name.lexeme.equals("range") && scopeOf(name) == -1) {
+                depend(() -> globalFunctions.containsKey("range") || otherGlobals.contains("range")
+                        ? Purity.EFFECTFUL
+                        : Purity.PURE);
+                return;
+            }
+        }
+        Object declaration = newLocal(iterable);
+        if (declaration != null) {
+            depend(() -> reassigned.contains(declaration) ? Purity.EFFECTFUL : Purity.PURE);
+            return;
+        }
+        depend(() -> purityOfAll(methods.get("iterator"))
+                .join(purityOfAll(methods.get("hasNext")))
+                .join(purityOfAll(methods.get("next"))));
+        recordMutation(iterable);
+    }
+
+    private void recordCall(Call expr) {
+        // a function passed as an argument may be called by the callee
+        for (Expr argument : expr.arguments) {
+            Dependency function = knownFunction(argument);
+            if (function != null) {
+                depend(function);
+            }
+        }
+        Expr callee = expr.callee;
+        if (callee instanceof Variable && scopeOf(((Variable) callee).name) == -1) {
+            String name = ((Variable) callee).name.lexeme;
+            depend(() -> globalPurity(name));
+        } else if (callee instanceof Get) {
+            recordMethodCall((Get) callee, expr.arguments);
+        } else if (callee instanceof Super) {
+            String name = ((Super) callee).method.lexeme;
+            depend(() -> methods.containsKey(name) ? purityOfAll(methods.get(name)) : Purity.EFFECTFUL);
+        } else {
+            Dependency function = knownFunction(callee);
+            if (function != null) {
+                depend(function);
+            } else {
+                effect(Purity.EFFECTFUL);
+            }
+        }
+    }
+
+    /*
+     * The receiver's class is not known, so a method call may reach any user
+     * method with that name as well as a built-in one.
+     */
+    private void recordMethodCall(Get callee, List<Expr> arguments) {
+        String name = callee.name.lexeme;
+        if (callee.object instanceof Variable && scopeOf(((Variable) callee.object).name) == -1) {
+            String className = ((Variable) callee.object).name.lexeme;
+            // a static of a built-in class, answered before the method names below match it
+            if (BUILT_IN_CLASSES.contains(className)) {
+                boolean pure = PURE_STATICS.contains(className + "." + name);
+                depend(() -> !pure || globalFunctions.containsKey(className) || otherGlobals.contains(className)
+                        ? Purity.EFFECTFUL
+                        : Purity.PURE);
+                return;
+            }
+        }
+        depend(() -> purityOfAll(methods.get(name)));
+        // a field with the name may hold any function, and hides built-in and user methods alike
+        depend(() -> fieldNames.contains(name) ? Purity.EFFECTFUL : null);
+        // only a new local is known not to be a sequence
+        if (SEQUENCE_TERMINALS.contains(name)) {
+            Object declaration = newLocal(callee.object);
+            if (declaration == null) {
+                effect(Purity.EFFECTFUL);
+                return;
+            }
+            depend(() -> reassigned.contains(declaration) ? Purity.EFFECTFUL : null);
+        }
+        if (READING_METHODS.contains(name)) {
+            return;
+        }
+        if (MUTATING_METHODS.contains(name)) {
+            recordMutation(callee.object);
+            return;
+        }
+        if (CALLBACK_METHODS.contains(name)) {
+            if (name.startsWith("sort")) {
+                recordMutation(callee.object);
+            }
+            if (!arguments.isEmpty()) {
+                Dependency callback = knownFunction(arguments.get(0));
+                if (callback != null) {
+                    depend(() -> {
+                        Purity purity = callback.purity();
+                        return purity == null ? Purity.EFFECTFUL : purity;
+                    });
+                } else {
+                    effect(Purity.EFFECTFUL);
+                }
+            }
+            return;
+        }
+        // not a built-in method, so only user methods can answer it
+        depend(() -> methods.containsKey(name) ? purityOfAll(methods.get(name)) : Purity.EFFECTFUL);
+    }
+
+    /*
+     * Solves the dependencies between the functions resolved in this run and
+     * records the result on each Stmt.Function and Expr.Lambda. Every function
+     * starts out as what its own body does and only moves towards EFFECTFUL,
+     * so recursive functions that do nothing else stay pure.
+     */
+    private void classifyFunctions() {
+        List<FunctionInfo> pending = new ArrayList<>();
+        for (FunctionInfo info : resolvedFunctions.values()) {
+            if (info.result == null) {
+                info.result = info.purity;
+                pending.add(info);
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (FunctionInfo info : pending) {
+                Purity purity = info.result;
+                for (int i = 0; i < info.dependencies.size() && purity != Purity.EFFECTFUL; i++) {
+                    Purity dependency = info.dependencies.get(i).purity();
+                    if (dependency != null) {
+                        purity = purity.join(dependency);
+                    }
+                }
+                if (purity != info.result) {
+                    info.result = purity;
+                    changed = true;
+                }
+            }
+        }
+        for (FunctionInfo info : pending) {
+            if (info.node instanceof Stmt.Function) {
+                ((Stmt.Function) info.node).purity = info.result;
+            } else {
+                ((Expr.Lambda) info.node).purity = info.result;
+            }
+        }
+    }
+
     @Override
     public Void visitExpressionStmt(Expression stmt) {
         resolve(stmt.expression);
@@ -156,7 +608,7 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitVarStmt(Var stmt) {
-        declare(stmt.name);
+        declare(stmt.name, stmt);
         if (stmt.initializer != null)
             resolve(stmt.initializer);
         define(stmt.name);
@@ -165,7 +617,7 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitBlockStmt(Block stmt) {
-        beginScope();
+        beginScope(stmt);
         resolve(stmt.statements);
         endScope();
         return null;
@@ -192,7 +644,8 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitFunctionStmt(Function stmt) {
-        declare(stmt.name);
+        captureScopes();
+        declare(stmt.name, stmt);
         define(stmt.name);
         resolveFunction(stmt, FunctionType.FUNCTION);
         return null;
@@ -249,6 +702,9 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         for (Expr arg : expr.arguments) {
             resolve(arg);
         }
+        if (!functions.isEmpty()) {
+            recordCall(expr);
+        }
         return null;
     }
 
@@ -265,6 +721,7 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visitAssignExpr(Assign expr) {
         resolve(expr.value);
         resolveLocal(expr, expr.name);
+        recordAssignment(expr.name);
         return null;
     }
 
@@ -273,6 +730,7 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         if (stmt.name.lexeme == "Object") {
             error(stmt.name, "Can't declare a class with name 'Object'.");
         }
+        captureScopes();
         ClassType enclosingClass = currentClass;
         currentClass = ClassType.CLASS;
         if (stmt.superClass != null)
@@ -285,6 +743,10 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             }
             resolve(stmt.superClass);
         }
+        for (Stmt.Function function : stmt.methods) {
+            Map<String, List<Stmt.Function>> byName = function.isGetter ? getters : methods;
+            byName.computeIfAbsent(function.name.lexeme, name -> new ArrayList<>()).add(function);
+        }
         // resolve static methods
         for (Stmt.Function function : stmt.methods) {
             if (function.staticToken != null) {
@@ -322,6 +784,9 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Object visitGetExpr(Get expr) {
         resolve(expr.object);
+        // reading a property runs the getter if there is one
+        String name = expr.name.lexeme;
+        depend(() -> purityOfAll(getters.get(name)));
         return null;
     }
 
@@ -329,6 +794,8 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visitSetExpr(Set expr) {
         resolve(expr.object);
         resolve(expr.value);
+        recordMutation(expr.object);
+        fieldNames.add(expr.name.lexeme);
         return null;
     }
 
@@ -380,6 +847,7 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         resolve(expr.object);
         resolve(expr.key);
         resolve(expr.value);
+        recordMutation(expr.object);
         return null;
     }
 
@@ -447,7 +915,7 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Void visitForStmt(For stmt) {
-        beginScope();
+        beginScope(stmt);
         if (stmt.initializer != null)
             resolve(stmt.initializer);
         if (stmt.condition != null)
@@ -462,11 +930,27 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitForInStmt(ForIn stmt) {
+        resolve(stmt.iterable);
+        recordIteration(stmt.iterable);
+        beginScope(stmt);
+        declare(stmt.name);
+        define(stmt.name);
+        LoopType enclosingLoop = currentLoop;
+        currentLoop = LoopType.LOOP;
+        resolve(stmt.body);
+        currentLoop = enclosingLoop;
+        endScope();
+        return null;
+    }
+
     @Override
     public Object visitFunctionExpr(tinkerscript.Expr.Function expr) {
+        captureScopes();
         beginScope();
         if (expr.function.name != null) {
-            declare(expr.function.name);
+            declare(expr.function.name, expr.function);
             define(expr.function.name);
         }
         resolveFunction(expr.function, FunctionType.FUNCTION);
@@ -478,13 +962,16 @@ public class Resolver implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visitLambdaExpr(Lambda expr) {
         FunctionType enclosingFunction = currentFunction;
         currentFunction = FunctionType.FUNCTION;
-        beginScope();
+        captureScopes();
+        beginScope(expr);
+        beginFunction(expr, false);
 
         for (Token param : expr.params) {
             declare(param);
             define(param);
         }
         resolve(expr.body);
+        endFunction();
         endScope();
         currentFunction = enclosingFunction;
         return null;
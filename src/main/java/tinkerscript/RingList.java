@@ -0,0 +1,180 @@
+package tinkerscript;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.RandomAccess;
+
+/*
+ * The storage of an array: a circular buffer, so elements can be added and
+ * removed at both ends in amortised constant time while indexing stays
+ * constant time. The capacity is always a power of two.
+ */
+final class RingList extends AbstractList<Object> implements RandomAccess {
+    private static final int MIN_CAPACITY = 8;
+
+    private Object[] elements;
+    // slot of the first element
+    private int head = 0;
+    private int size = 0;
+
+    RingList() {
+        this.elements = new Object[MIN_CAPACITY];
+    }
+
+    RingList(int capacity) {
+        this.elements = new Object[capacityFor(capacity)];
+    }
+
+    RingList(Collection<?> values) {
+        Object[] array = values.toArray();
+        this.elements = new Object[capacityFor(array.length)];
+        System.arraycopy(array, 0, elements, 0, array.length);
+        this.size = array.length;
+    }
+
+    private static int capacityFor(int size) {
+        return Integer.highestOneBit(Math.max(size, MIN_CAPACITY) - 1) << 1;
+    }
+
+    private int slot(int index) {
+        return (head + index) & (elements.length - 1);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+    }
+
+    private void ensureCapacity(int minimumCapacity) {
+        if (minimumCapacity > elements.length) {
+            Object[] grown = new Object[capacityFor(minimumCapacity)];
+            copyTo(grown);
+            elements = grown;
+            head = 0;
+        }
+    }
+
+    // copies the elements in order to the start of the array
+    private void copyTo(Object[] destination) {
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, destination, 0, firstPart);
+        System.arraycopy(elements, 0, destination, firstPart, size - firstPart);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object get(int index) {
+        checkIndex(index);
+        return elements[slot(index)];
+    }
+
+    @Override
+    public Object set(int index, Object value) {
+        checkIndex(index);
+        int slot = slot(index);
+        Object previous = elements[slot];
+        elements[slot] = value;
+        return previous;
+    }
+
+    @Override
+    public boolean add(Object value) {
+        ensureCapacity(size + 1);
+        elements[slot(size)] = value;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    void addFirst(Object value) {
+        ensureCapacity(size + 1);
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = value;
+        size++;
+        modCount++;
+    }
+
+    Object removeFirst() {
+        Object value = elements[head];
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        modCount++;
+        return value;
+    }
+
+    Object removeLast() {
+        int slot = slot(size - 1);
+        Object value = elements[slot];
+        elements[slot] = null;
+        size--;
+        modCount++;
+        return value;
+    }
+
+    @Override
+    public void add(int index, Object value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        if (index == 0) {
+            addFirst(value);
+            return;
+        }
+        ensureCapacity(size + 1);
+        for (int i = size; i > index; i--) {
+            elements[slot(i)] = elements[slot(i - 1)];
+        }
+        elements[slot(index)] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Object remove(int index) {
+        checkIndex(index);
+        if (index == 0) {
+            return removeFirst();
+        }
+        Object value = elements[slot(index)];
+        for (int i = index; i < size - 1; i++) {
+            elements[slot(i)] = elements[slot(i + 1)];
+        }
+        elements[slot(size - 1)] = null;
+        size--;
+        modCount++;
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, null);
+        head = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size];
+        copyTo(array);
+        return array;
+    }
+
+    @Override
+    public void sort(Comparator<? super Object> comparator) {
+        Object[] array = toArray();
+        Arrays.sort(array, comparator);
+        System.arraycopy(array, 0, elements, 0, size);
+        Arrays.fill(elements, size, elements.length, null);
+        head = 0;
+        modCount++;
+    }
+}
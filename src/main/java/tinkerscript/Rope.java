@@ -0,0 +1,90 @@
+package tinkerscript;
+
+/*
+ * A string value produced by concatenation. Appending to the most recent rope
+ * of a buffer extends the shared buffer in place instead of copying, so
+ * building a string in a loop (s = s + line) takes linear time. Older ropes
+ * stay valid since they only see their own prefix of the buffer. The rope is
+ * flattened into a String when it is indexed, compared, hashed or printed.
+ */
+public final class Rope implements CharSequence {
+    // concatenations shorter than this produce plain strings
+    static final int MIN_LENGTH = 128;
+
+    private final StringBuilder buffer;
+    private final int length;
+    private String flat;
+
+    private Rope(StringBuilder buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    static CharSequence concat(CharSequence left, CharSequence right) {
+        int length = left.length() + right.length();
+        if (length < MIN_LENGTH) {
+            return left.toString().concat(right.toString());
+        }
+        if (left instanceof Rope) {
+            Rope rope = (Rope) left;
+            synchronized (rope.buffer) {
+                if (rope.buffer.length() == rope.length) {
+                    appendTo(rope.buffer, right);
+                    return new Rope(rope.buffer, length);
+                }
+            }
+        }
+        StringBuilder buffer = new StringBuilder(length * 2);
+        appendTo(buffer, left);
+        appendTo(buffer, right);
+        return new Rope(buffer, length);
+    }
+
+    private static void appendTo(StringBuilder buffer, CharSequence value) {
+        if (value instanceof Rope) {
+            value = value.toString();
+        }
+        buffer.append(value);
+    }
+
+    /*
+     * Returns the String form of a rope or string view, any other value is
+     * returned as is.
+     */
+    static Object flatten(Object value) {
+        if (value instanceof CharSequence && !(value instanceof String)) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        synchronized (buffer) {
+            return buffer.charAt(index);
+        }
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (flat == null) {
+            synchronized (buffer) {
+                flat = buffer.substring(0, length);
+            }
+        }
+        return flat;
+    }
+}
@@ -40,6 +40,7 @@ public class Scanner {
         keywords.put("switch", SWITCH);
         keywords.put("case", CASE);
         keywords.put("default", DEFAULT);
+        keywords.put("in", IN);
     }
 
     Scanner(String source) {
@@ -360,7 +361,7 @@ public class Scanner {
                 advance();
             }
         }
-        addToken(NUMBER, Double.parseDouble(source.substring(start, current)));
+        addToken(NUMBER, NumberCodec.parse(source.subSequence(start, current)));
     }
 
     private boolean isAlpha(char c) {
@@ -0,0 +1,76 @@
+package tinkerscript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Sorting behind the Array sort methods. Arrays of only numbers or only
+ * strings are compared in Java; comparators and key functions are called
+ * through a Callback. Sorting is stable (TimSort through List.sort).
+ */
+class Sorting {
+    private static final Comparator<Object> NUMBER_ORDER = (a, b) -> Double.compare((double) a, (double) b);
+    private static final Comparator<Object> STRING_ORDER = (a, b) -> a.toString().compareTo(b.toString());
+
+    static void sort(List<Object> elements) {
+        sortWith(elements, naturalOrder(elements, "Can only sort arrays of numbers or strings without a comparator."));
+    }
+
+    static void sort(List<Object> elements, Callback comparator) {
+        sortWith(elements, (a, b) -> {
+            Object result = comparator.call(a, b);
+            if (!(result instanceof Double)) {
+                throw new RuntimeError(null, "Comparator must return a number.");
+            }
+            double order = (double) result;
+            return order < 0 ? -1 : order > 0 ? 1 : 0;
+        });
+    }
+
+    /*
+     * Calls the key function once per element and sorts by the keys, which
+     * must be all numbers or all strings.
+     */
+    static void sortBy(List<Object> elements, Callback keyFunction) {
+        int size = elements.size();
+        List<Object> keys = new ArrayList<>(size);
+        for (Object element : elements) {
+            keys.add(keyFunction.call(element));
+        }
+        Comparator<Object> keyOrder = naturalOrder(keys, "Sort keys must be all numbers or all strings.");
+        Object[][] pairs = new Object[size][];
+        for (int i = 0; i < size; i++) {
+            pairs[i] = new Object[] {keys.get(i), elements.get(i)};
+        }
+        Arrays.sort(pairs, (a, b) -> keyOrder.compare(a[0], b[0]));
+        for (int i = 0; i < size; i++) {
+            elements.set(i, pairs[i][1]);
+        }
+    }
+
+    private static Comparator<Object> naturalOrder(List<Object> values, String message) {
+        boolean numbers = true;
+        boolean strings = true;
+        for (Object value : values) {
+            numbers &= value instanceof Double;
+            strings &= value instanceof CharSequence;
+        }
+        if (numbers) {
+            return NUMBER_ORDER;
+        }
+        if (strings) {
+            return STRING_ORDER;
+        }
+        throw new RuntimeError(null, message);
+    }
+
+    private static void sortWith(List<Object> elements, Comparator<Object> order) {
+        try {
+            elements.sort(order);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeError(null, "Comparator is inconsistent.");
+        }
+    }
+}
@@ -17,6 +17,8 @@ abstract class Stmt {
 
         R visitForStmt(For stmt);
 
+        R visitForInStmt(ForIn stmt);
+
         R visitFunctionStmt(Function stmt);
 
         R visitReturnStmt(Return stmt);
@@ -69,6 +71,7 @@ abstract class Stmt {
         }
 
         final List<Stmt> statements;
+        boolean escapes;
 
         <R> R accept(Visitor<R> visitor) {
             return visitor.visitBlockStmt(this);
@@ -117,12 +120,32 @@ abstract class Stmt {
         final Expr condition;
         final Expr increment;
         final Stmt body;
+        boolean escapes;
 
         <R> R accept(Visitor<R> visitor) {
             return visitor.visitForStmt(this);
         }
     }
 
+    static class ForIn extends Stmt {
+        ForIn(Token name, Token keyword, Expr iterable, Stmt body) {
+            this.name = name;
+            this.keyword = keyword;
+            this.iterable = iterable;
+            this.body = body;
+        }
+
+        final Token name;
+        final Token keyword;
+        final Expr iterable;
+        final Stmt body;
+        boolean escapes;
+
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitForInStmt(this);
+        }
+    }
+
     static class Function extends Stmt {
         Function(Token name, List<Token> params, Token spread , List<Stmt> body, Token staticToken, Boolean isGetter) {
             this.name = name;
@@ -139,6 +162,8 @@ abstract class Stmt {
         final List<Stmt> body;
         final Token staticToken;
         final Boolean isGetter;
+        Purity purity;
+        boolean escapes;
 
         <R> R accept(Visitor<R> visitor) {
             return visitor.visitFunctionStmt(this);
@@ -0,0 +1,68 @@
+package tinkerscript;
+
+/*
+ * A substring that shares the characters of the string it was taken from.
+ * Slicing, trimming and splitting return views for long results so that
+ * taking a piece of a large string does not copy it. Like a rope, a view is
+ * turned into a String when it is compared, hashed or used as a map key.
+ */
+public final class StringView implements CharSequence {
+    // shorter substrings are copied, the view would not save anything
+    static final int MIN_LENGTH = 64;
+
+    private final String source;
+    private final int offset;
+    private final int length;
+    private String flat;
+
+    private StringView(String source, int offset, int length) {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    static CharSequence of(CharSequence text, int start, int end) {
+        if (start == 0 && end == text.length() && !(text instanceof Rope)) {
+            return text;
+        }
+        if (text instanceof StringView) {
+            StringView view = (StringView) text;
+            return of(view.source, view.offset + start, view.offset + end);
+        }
+        String source = text.toString();
+        if (end - start < MIN_LENGTH) {
+            return source.substring(start, end);
+        }
+        return new StringView(source, start, end - start);
+    }
+
+    void getChars(int start, int end, char[] destination, int destinationStart) {
+        source.getChars(offset + start, offset + end, destination, destinationStart);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return source.charAt(offset + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return of(this, start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (flat == null) {
+            flat = source.substring(offset, offset + length);
+        }
+        return flat;
+    }
+}
@@ -0,0 +1,122 @@
+package tinkerscript;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Helpers behind the String natives and string indexing.
+ */
+class Strings {
+    // one-character strings for the Latin-1 range, shared by indexing and iteration
+    private static final String[] CHARACTERS = new String[256];
+
+    static {
+        for (int i = 0; i < CHARACTERS.length; i++) {
+            CHARACTERS[i] = String.valueOf((char) i);
+        }
+    }
+
+    static String character(char c) {
+        return c < CHARACTERS.length ? CHARACTERS[c] : String.valueOf(c);
+    }
+
+    static CharSequence string(Object value) {
+        if (!(value instanceof CharSequence)) {
+            throw new RuntimeError(null, "Invalid argument type. Expected string.");
+        }
+        return (CharSequence) value;
+    }
+
+    static int integer(Object value) {
+        if (!(value instanceof Double) || (double) value != Math.rint((double) value)
+                || Math.abs((double) value) > Integer.MAX_VALUE) {
+            throw new RuntimeError(null, "Invalid argument type. Expected integer.");
+        }
+        return (int) (double) value;
+    }
+
+    static int indexOf(CharSequence text, CharSequence search, int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        return text.toString().indexOf(search.toString(), from);
+    }
+
+    static int lastIndexOf(CharSequence text, CharSequence search) {
+        return text.toString().lastIndexOf(search.toString());
+    }
+
+    /*
+     * Splits around every occurrence of the separator. An empty separator
+     * splits the text into its characters.
+     */
+    static List<Object> split(CharSequence text, CharSequence separator) {
+        List<Object> parts = new ArrayList<>();
+        if (separator.length() == 0) {
+            for (int i = 0; i < text.length(); i++) {
+                parts.add(character(text.charAt(i)));
+            }
+            return parts;
+        }
+        String source = text.toString();
+        String search = separator.toString();
+        int start = 0;
+        int index;
+        while ((index = source.indexOf(search, start)) != -1) {
+            parts.add(StringView.of(text, start, index));
+            start = index + search.length();
+        }
+        parts.add(StringView.of(text, start, text.length()));
+        return parts;
+    }
+
+    static String join(List<Object> values, CharSequence separator) {
+        TextBuffer buffer = new TextBuffer(16 * values.size() + 16);
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                buffer.append(separator);
+            }
+            buffer.appendValue(values.get(i));
+        }
+        return buffer.toString();
+    }
+
+    static CharSequence trim(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return StringView.of(text, start, end);
+    }
+
+    static boolean startsWith(CharSequence text, CharSequence prefix) {
+        return regionMatches(text, 0, prefix);
+    }
+
+    static boolean endsWith(CharSequence text, CharSequence suffix) {
+        return regionMatches(text, text.length() - suffix.length(), suffix);
+    }
+
+    private static boolean regionMatches(CharSequence text, int offset, CharSequence part) {
+        if (offset < 0 || offset + part.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < part.length(); i++) {
+            if (text.charAt(offset + i) != part.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String repeat(CharSequence text, int count) {
+        if (count < 0) {
+            throw new RuntimeError(null, "Repeat count can't be negative.");
+        }
+        return text.toString().repeat(count);
+    }
+}
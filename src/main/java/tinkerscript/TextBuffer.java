@@ -0,0 +1,91 @@
+package tinkerscript;
+
+import java.util.Arrays;
+
+/*
+ * Growable character buffer that knows how to write TinkerScript values.
+ * Values are written straight into the buffer, numbers without going through
+ * an intermediate string.
+ */
+class TextBuffer {
+    private char[] value;
+    private int count = 0;
+
+    TextBuffer(int capacity) {
+        this.value = new char[capacity];
+    }
+
+    int length() {
+        return count;
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    private void ensureCapacity(int minimumCapacity) {
+        if (minimumCapacity > value.length) {
+            value = Arrays.copyOf(value, Math.max(minimumCapacity, value.length * 2));
+        }
+    }
+
+    void append(char c) {
+        ensureCapacity(count + 1);
+        value[count++] = c;
+    }
+
+    void append(CharSequence text) {
+        if (text instanceof Rope) {
+            text = text.toString();
+        }
+        int length = text.length();
+        ensureCapacity(count + length);
+        if (text instanceof String) {
+            ((String) text).getChars(0, length, value, count);
+        } else if (text instanceof StringView) {
+            ((StringView) text).getChars(0, length, value, count);
+        } else {
+            for (int i = 0; i < length; i++) {
+                value[count + i] = text.charAt(i);
+            }
+        }
+        count += length;
+    }
+
+    void appendNumber(double number) {
+        ensureCapacity(count + NumberCodec.MAX_LENGTH);
+        int end = NumberCodec.write(number, value, count);
+        if (end < 0) {
+            append(NumberCodec.fallback(number));
+            return;
+        }
+        count = end;
+    }
+
+    /*
+     * Appends the same text TinkerScript.stringify would produce for the value.
+     */
+    void appendValue(Object object) {
+        if (object instanceof Double) {
+            appendNumber((double) object);
+        } else if (object instanceof CharSequence) {
+            append((CharSequence) object);
+        } else {
+            append(TinkerScript.stringify(object));
+        }
+    }
+
+    boolean contains(char c, int from) {
+        for (int i = from; i < count; i++) {
+            if (value[i] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return new String(value, 0, count);
+    }
+}
@@ -31,7 +31,7 @@ enum TokenType {
     AND, CLASS, ELSE, FALSE, FUN, FOR, IF, NIL, OR,
     RETURN, SUPER, THIS, TRUE, VAR, WHILE,
     TRY, CATCH, THROW, BREAK, CONTINUE,
-    STATIC, SWITCH, CASE, DEFAULT,
+    STATIC, SWITCH, CASE, DEFAULT, IN,
 
     COMMENT,
     EOF
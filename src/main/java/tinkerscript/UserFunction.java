@@ -24,7 +24,15 @@ public class UserFunction implements LangFunction {
 
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
-        Environment environment = new Environment(closure);
+        Environment environment = interpreter.newFrame(closure, declaration.escapes);
+        try {
+            return run(interpreter, environment, arguments);
+        } finally {
+            interpreter.releaseFrame(environment, declaration.escapes);
+        }
+    }
+
+    private Object run(Interpreter interpreter, Environment environment, List<Object> arguments) {
         List<Token> params = declaration.params;
         for (int i = 0; i < params.size() - 1; i++) {
             environment.define(params.get(i).lexeme, arguments.get(i));
@@ -31,16 +31,17 @@ public class GenerateAst {
                 "Dictionary : List<Expr> keys, List<Expr> values",
                 "Spread : Token operator, Expr right",
                 "Function : Stmt.Function function",
-                "Lambda : List<Token> params, Token spread , Expr body"));
+                "Lambda : List<Token> params, Token spread , Expr body | Purity purity, boolean escapes"));
 
         defineAst(outputDir, "Stmt", Arrays.asList(
                 "Expression : Expr expression",
                 "Var : Token name, Expr initializer",
-                "Block : List<Stmt> statements",
+                "Block : List<Stmt> statements | boolean escapes",
                 "If : Expr condition , Stmt thenStatement , Stmt elseStatement",
                 "While : Expr condition,  Stmt body",
-                "For : Stmt initializer, Expr condition, Expr increment, Stmt body",
-                "Function : Token name, List<Token> params, Token spread , List<Stmt> body, Token staticToken, Boolean isGetter",
+                "For : Stmt initializer, Expr condition, Expr increment, Stmt body | boolean escapes",
+                "ForIn : Token name, Token keyword, Expr iterable, Stmt body | boolean escapes",
+                "Function : Token name, List<Token> params, Token spread , List<Stmt> body, Token staticToken, Boolean isGetter | Purity purity, boolean escapes",
                 "Return : Token keyword, Expr value",
                 "Class : Token name, List<Stmt.Function> methods, Expr.Variable superClass",
                 "TryCatch : List<Stmt> tryBlock, List<Stmt> catchBlock, Token exception",
@@ -76,7 +77,16 @@ public class GenerateAst {
         writer.close();
     }
 
+    /*
+     * Fields after a '|' are not constructor parameters. They are left
+     * mutable, for results later passes record on the node.
+     */
     private static void defineType(PrintWriter writer, String baseName, String className, String fieldList) {
+        String[] annotations = new String[0];
+        if (fieldList.contains("|")) {
+            annotations = fieldList.split("\\|")[1].trim().split(", ");
+            fieldList = fieldList.split("\\|")[0].trim();
+        }
         writer.println("    static class " + className + " extends " + baseName + " {");
         writer.println("        " + className + "(" + fieldList + ") {");
 
@@ -94,6 +104,9 @@ public class GenerateAst {
             field = field.trim();
             writer.println("        final " + field + ";");
         }
+        for (String annotation : annotations) {
+            writer.println("        " + annotation.trim() + ";");
+        }
 
         writer.println();
         writer.println("        <R> R accept(Visitor<R> visitor) {");
@@ -29,8 +29,11 @@ public class GenerateTest {
         writer.println();
         writer.println("import static org.junit.Assert.assertEquals;");
         writer.println();
+        writer.println("import java.io.ByteArrayInputStream;");
         writer.println("import java.io.IOException;");
+        writer.println("import java.io.InputStream;");
         writer.println("import java.nio.charset.Charset;");
+        writer.println("import java.nio.charset.StandardCharsets;");
         writer.println("import java.nio.file.Files;");
         writer.println("import java.nio.file.Paths;");
         writer.println();
@@ -72,6 +75,16 @@ public class GenerateTest {
         writer.println("        return output;");
         writer.println("    }");
         writer.println();
+        writer.println("    private final String testFile(String path, String input) throws IOException {");
+        writer.println("        InputStream stdin = System.in;");
+        writer.println("        System.setIn(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));");
+        writer.println("        try {");
+        writer.println("            return testFile(path);");
+        writer.println("        } finally {");
+        writer.println("            System.setIn(stdin);");
+        writer.println("        }");
+        writer.println("    }");
+        writer.println();
         List<String> testFiles = getTestFiles();
         for (String testFile : testFiles) {
             String folderName = new File(testFile).getParentFile().getName();
@@ -79,9 +92,14 @@ public class GenerateTest {
             String testName = (folderName.equals("testcases") ? "" : (folderName + "_")) + fileName.replace(".tis", "");
             String fileNameForTest = folderName.equals("testcases") ? fileName : folderName + "/" + fileName;
             String expectedOutput = getExpectedOutput(testFile);
+            String input = getInput(testFile);
             writer.println("    @Test");
             writer.println("    public void " + testName + "() throws IOException {");
-            writer.println("        String output= testFile(testDir + \"/" + fileNameForTest + "\");");
+            if (input.isEmpty()) {
+                writer.println("        String output= testFile(testDir + \"/" + fileNameForTest + "\");");
+            } else {
+                writer.println("        String output= testFile(testDir + \"/" + fileNameForTest + "\", \"" + input + "\");");
+            }
             writer.println("        assertEquals(" + "\"" + expectedOutput + "\"" + ", output);");
             writer.println("    }");
             writer.println();
@@ -118,6 +136,15 @@ public class GenerateTest {
         return expectedOutput;
     }
 
+    /*
+     * Lines given as "// input: ..." comments are the standard input of the
+     * test, each followed by a line break.
+     */
+    private static String getInput(String testFile) throws IOException {
+        String content = new String(Files.readAllBytes(Paths.get(testFile)));
+        return getExpectedOutFromPattern(content, "// input: (.*)");
+    }
+
     private static String getExpectedOutFromPattern(String content, String regex) {
         StringBuilder sb = new StringBuilder();
         Pattern pattern = Pattern.compile(regex);
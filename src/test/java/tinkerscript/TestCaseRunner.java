@@ -2,8 +2,11 @@ package tinkerscript;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
@@ -44,6 +47,16 @@ public class TestCaseRunner {
         return output;
     }
 
+    private final String testFile(String path, String input) throws IOException {
+        InputStream stdin = System.in;
+        System.setIn(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        try {
+            return testFile(path);
+        } finally {
+            System.setIn(stdin);
+        }
+    }
+
     @Test
     public void lambdas_use() throws IOException {
         String output= testFile(testDir + "/lambdas/use.tis");
@@ -1958,4 +1971,280 @@ public class TestCaseRunner {
         assertEquals("inner\nouter\n", output);
     }
 
+    @Test
+    public void map_iterators() throws IOException {
+        String output= testFile(testDir + "/map/iterators.tis");
+        assertEquals("a b c \n1 2 3 \n[a, 1] [b, 2] [c, 3] \n{a: 10, b: 20, c: 30}\nMap was modified during iteration.\nfalse\nIterator is exhausted.\n", output);
+    }
+
+    @Test
+    public void for_in_map() throws IOException {
+        String output= testFile(testDir + "/for_in/map.tis");
+        assertEquals("a 1 b 2 \n1 2 \n[a, 1] [b, 2] \n", output);
+    }
+
+    @Test
+    public void for_in_break_continue() throws IOException {
+        String output= testFile(testDir + "/for_in/break_continue.tis");
+        assertEquals("1 3 \na b \ntrue\nfalse\n", output);
+    }
+
+    @Test
+    public void for_in_array() throws IOException {
+        String output= testFile(testDir + "/for_in/array.tis");
+        assertEquals("1 2 3 \na b \n1 2 3 4 \n10\n", output);
+    }
+
+    @Test
+    public void for_in_syntax() throws IOException {
+        String output= testFile(testDir + "/for_in/syntax.tis");
+        assertEquals("[line 1] Error at ')': Expected expression.\n", output);
+    }
+
+    @Test
+    public void for_in_class() throws IOException {
+        String output= testFile(testDir + "/for_in/class.tis");
+        assertEquals("3 2 1 \n2 1 \n", output);
+    }
+
+    @Test
+    public void for_in_not_iterable() throws IOException {
+        String output= testFile(testDir + "/for_in/not_iterable.tis");
+        assertEquals("runtime error: Value is not iterable.\n", output);
+    }
+
+    @Test
+    public void for_in_string() throws IOException {
+        String output= testFile(testDir + "/for_in/string.tis");
+        assertEquals("a b c \n", output);
+    }
+
+    @Test
+    public void for_in_scope() throws IOException {
+        String output= testFile(testDir + "/for_in/scope.tis");
+        assertEquals("1 2 \nouter\n1 2\n", output);
+    }
+
+    @Test
+    public void range_access() throws IOException {
+        String output= testFile(testDir + "/range/access.tis");
+        assertEquals("5\n10\n18\n0\n4\nrange(12, 16, 2)\n12 14 \nrange(16, 20, 2)\nrange(10, 14, 2)\nrange(14, 20, 2)\nIndex 5 out of range.\nInvalid index.\nRange step can't be zero.\nInvalid argument type. Expected integer.\nExpected 1 to 3 arguments but got 0.\nRange is too large.\n6\n", output);
+    }
+
+    @Test
+    public void range_iterate() throws IOException {
+        String output= testFile(testDir + "/range/iterate.tis");
+        assertEquals("0 1 2 3 4 \n2 3 4 \n0 3 6 9 \n5 3 1 \n0 2 \nrange(0, 3, 1)\nrange(1, 10, 4)\nrange(0, 10, 3) range(3, 9, 3)\nrange(5, 0, 1)\n", output);
+    }
+
+    @Test
+    public void string_concat_in_loop() throws IOException {
+        String output= testFile(testDir + "/string/concat_in_loop.tis");
+        assertEquals("2000\na b\nabab\n100 101 101\ny z\ntrue\nfalse\ntrue\n1\nsame\ntrue\nend\n", output);
+    }
+
+    @Test
+    public void string_builder_append() throws IOException {
+        String output= testFile(testDir + "/string_builder/append.tis");
+        assertEquals("a12.5truenil[1, 2]-3\n20\n0\nx10\ny\nx10\ny\n0 -0 1000000 1.0E7 0.001 1.0E-4 0.3333333333333333\ntrue\nstart:01234\n20000\n<b>bold</b>\n", output);
+    }
+
+    @Test
+    public void output_print() throws IOException {
+        String output= testFile(testDir + "/output/print.tis");
+        assertEquals("a 1 2.5 true nil [1, b] {k: v}\n\n-0 1.0E7 0.1\nline 0\nline 1\nline 2\n", output);
+    }
+
+    @Test
+    public void output_flush_before_error() throws IOException {
+        String output= testFile(testDir + "/output/flush_before_error.tis");
+        assertEquals("before\nruntime error: Operands must be two numbers or two strings.\n", output);
+    }
+
+    @Test
+    public void file_large() throws IOException {
+        String output= testFile(testDir + "/file/large.tis");
+        assertEquals("1088890\n1088890\ntrue\n100000 line 99999\n", output);
+    }
+
+    @Test
+    public void file_read_write() throws IOException {
+        String output= testFile(testDir + "/file/read_write.tis");
+        assertEquals("19\n19\n<first><second><third>\nhéllo | |wörld |\n15\n[1, 2.5, nil]\n13\n[1, 2.5, nil]\ntrue\nFile 'target/does_not_exist.txt' not found.\nInvalid path. Expected string.\n", output);
+    }
+
+    @Test
+    public void csv_read_write() throws IOException {
+        String output= testFile(testDir + "/csv/read_write.tis");
+        assertEquals("3 [name, note, count]\n3 [ada, likes, commas, 3]\n3 [bob, says \"hi\", ]\n3 [multi\nline, , 7]\nid,text\n1,\"a,b\"\n2.5,\"quote \"\" inside\"\nnil,\"two\nlines\"\na,b\nquote \" inside\ntrue\nfalse\n'a;b';'it''s';plain\n[a;b, it's, plain]\nCSV writer is closed.\nInvalid option 'delimiter'. Expected a single character.\nUnterminated quoted field in CSV file.\nfalse\nruntime error: Unterminated quoted field in CSV file.\n", output);
+    }
+
+    @Test
+    public void json_parse_stringify() throws IOException {
+        String output= testFile(testDir + "/json/parse_stringify.tis");
+        assertEquals("ada bé -125 true nil\n[] 0 1000 a	b\n[1,2.5,\"say \\\"hi\\\"\",null,true,{\"k\":[]},[0,1,2]]\n\"line\\nbreak\"\n{\n  \"a\": [\n    1,\n    {\n      \"b\": 2\n    }\n  ]\n}\ntrue\nCannot convert a value that contains itself to JSON.\nCannot convert <native fn> to JSON.\nInvalid JSON at position 5. Expected ',' or ']'.\nInvalid JSON at position 5. Expected ':'.\nInvalid JSON at position 3. Leading zeros are not allowed.\nruntime error: Invalid JSON at position 2. Unexpected trailing content.\n", output);
+    }
+
+    @Test
+    public void json_stream() throws IOException {
+        String output= testFile(testDir + "/json/stream.tis");
+        assertEquals("5000 true\n{id: 1} {id: 2} [3] \nInvalid JSON at position 3. Expected ',' or ']'.\nfalse\n1\n2\nruntime error: Invalid JSON at position 6. Unexpected character ','.\n", output);
+    }
+
+    @Test
+    public void regex_match() throws IOException {
+        String output= testFile(testDir + "/regex/match.tis");
+        assertEquals("<match ada@example.com>\nada@example.com ada example\n5 20\n[ada@example.com, ada, example]\nnil\n[a, a, nil]\nhello\n1 22 333 \n1000\nellohay orldway\n[a, b, c, , d]\nInvalid regular expression: Unclosed group.\nInvalid flag 'q'.\nruntime error: Group 2 out of range.\n", output);
+    }
+
+    @Test
+    public void string_library_views() throws IOException {
+        String output= testFile(testDir + "/string_library/views.tis");
+        assertEquals("100\nneedle n 50\ntrue true\n1 2\n70 z\n70 70 bbb\n200\n50\n", output);
+    }
+
+    @Test
+    public void string_library_methods() throws IOException {
+        String output= testFile(testDir + "/string_library/methods.tis");
+        assertEquals("[hello, world]\n6 10 10 -1\n[a, b, , c]\n[a, b, c]\n1-two-nil\ntrue true false\n65 Hi é\nababab true\nIndex 3 out of range.\nruntime error: Repeat count can't be negative.\n", output);
+    }
+
+    @Test
+    public void number_format_parse() throws IOException {
+        String output= testFile(testDir + "/number/format_parse.tis");
+        assertEquals("0.30000000000000004 0.3333333333333333 2.5 -7 -0\n123456.789 0.001 1.0E-4 9999999 1.0E7\n[1, 0.5, -0.25, 1.0E8]\n0 0.25 0.5 0.75 1 \n42 -350 1 0.5 3\n1.2345678901234567E19\nInfinity -Infinity\nCannot convert to number.\nruntime error: Cannot convert to number.\n", output);
+    }
+
+    @Test
+    public void timing_bench() throws IOException {
+        String output= testFile(testDir + "/timing/bench.tis");
+        assertEquals("25\ntrue\n20\ntrue true true\ntrue true\ntrue\nBenchmarked function must take no arguments.\nruntime error: Invalid option 'iterations'. Expected integer of at least 1.\n", output);
+    }
+
+    @Test
+    public void array_sort() throws IOException {
+        String output= testFile(testDir + "/array/sort.tis");
+        assertEquals("[-4, 1, 2.5, 3]\n[C, a, ab, b]\n[] [1]\n[3, 2, 1]\nal bo cy \nal bo cy \ntrue 0 100002\nCan only sort arrays of numbers or strings without a comparator.\nComparator must return a number.\nComparator must take 2 arguments.\nruntime error: Sort keys must be all numbers or all strings.\n", output);
+    }
+
+    @Test
+    public void array_higher_order() throws IOException {
+        String output= testFile(testDir + "/array/higher_order.tis");
+        assertEquals("[2, 4, 6, 8, 10]\n[1, 3, 5]\n15\n25\n1 2 3 4 5 \ntrue false\ntrue true\n[1, 2, 3, 4, 5]\n2\n[3, 2]\nCallback must take 1 argument.\nInvalid argument type. Expected function.\nruntime error: Can't reduce an empty array without an initial value.\n", output);
+    }
+
+    @Test
+    public void seq_pipeline() throws IOException {
+        String output= testFile(testDir + "/seq/pipeline.tis");
+        assertEquals("<seq> 0\n[0, 4, 16] 5\n3 0\n120\n[3, 4]\n[] 4\ntrue false\n2 4 \nnil\n5\nCan't reduce an empty sequence without an initial value.\nruntime error: Invalid argument type. Expected non-negative integer.\n", output);
+    }
+
+    @Test
+    public void array_parallel() throws IOException {
+        String output= testFile(testDir + "/array/parallel.tis");
+        assertEquals("true\n5000 0 9998\ntrue\ntrue\n0 [10, 20]\nCan't reduce an empty array without an initial value.\n10000\ntrue\n19998\ntrue\n100000\nbad record\nruntime error: Operands must be two numbers or two strings.\n", output);
+    }
+
+    @Test
+    public void array_deque() throws IOException {
+        String output= testFile(testDir + "/array/deque.tis");
+        assertEquals("[0, 1, 2, 3]\n0\n1\n3\n2\n[1900, 11, 12, 13, 14, 15, 16, 17, 18, 19]\n[9, 8, 7, 6, 5, 4, 3, 2, 1, 0, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9]\n[7, 6, 5]\ntrue\n9\nnil\nnil\nruntime error: Can't shift from an empty array.\n", output);
+    }
+
+    @Test
+    public void set_invalid_argument() throws IOException {
+        String output= testFile(testDir + "/set/invalid_argument.tis");
+        assertEquals("runtime error: Invalid argument type. Expected set.\n", output);
+    }
+
+    @Test
+    public void set_operations() throws IOException {
+        String output= testFile(testDir + "/set/operations.tis");
+        assertEquals("3\nfalse\ntrue\ntrue\nfalse\ntrue\nfalse\n[2, 3, 4]\ntrue\nfalse\n[1, 2, 3, 4]\n[2, 3]\n[2, 3]\n{1}\n3\n6\n1000\n0\nruntime error: Invalid key [1].\n", output);
+    }
+
+    @Test
+    public void set_modified_during_iteration() throws IOException {
+        String output= testFile(testDir + "/set/modified_during_iteration.tis");
+        assertEquals("runtime error: Set was modified during iteration.\n", output);
+    }
+
+    @Test
+    public void priority_queue_pop_empty() throws IOException {
+        String output= testFile(testDir + "/priority_queue/pop_empty.tis");
+        assertEquals("runtime error: Can't pop from an empty priority queue.\n", output);
+    }
+
+    @Test
+    public void priority_queue_top_k() throws IOException {
+        String output= testFile(testDir + "/priority_queue/top_k.tis");
+        assertEquals("[9, 7, 5]\n[5, 1]\n[]\n[c, b]\nada cy\n[10006, 10005, 10004]\nruntime error: Invalid count. Expected a non-negative integer.\n", output);
+    }
+
+    @Test
+    public void priority_queue_queue() throws IOException {
+        String output= testFile(testDir + "/priority_queue/queue.tis");
+        assertEquals("5\n1\n[1, 2, 3, 4, 5]\nnil\napple\nread\nwrite\ntest\nship\ntrue\nruntime error: Priority keys must be all numbers or all strings.\n", output);
+    }
+
+    @Test
+    public void buffer_typed() throws IOException {
+        String output= testFile(testDir + "/buffer/typed.tis");
+        assertEquals("<buffer 16 bytes>\n16\n0\n255\n-1\n7\n-2\ntrue\n255 254\n2 1\n258\n513\n513\n3.25\n1.5\n4\n42\n42\n9 9 0\n6\nhéllo\nruntime error: Offset 14 out of range.\n", output);
+    }
+
+    @Test
+    public void buffer_mapped() throws IOException {
+        String output= testFile(testDir + "/buffer/mapped.tis");
+        assertEquals("4\n65 BCD\ntrue\naBCD\naBCD\nruntime error: Buffer is read-only.\n", output);
+    }
+
+    @Test
+    public void vector_kernels() throws IOException {
+        String output= testFile(testDir + "/vector/kernels.tis");
+        assertEquals("[1, 2, 3]\n3 3\n[5, 7, 9]\n[4, 10, 18]\n[0.5, 1, 1.5]\n32\n15\n-1 3\nnil\n[3, 5, 7]\n8 [0, 0, 8, 0]\n[0, 0, 8, 0, 1]\n100000\nruntime error: Vectors must have the same size.\n", output);
+    }
+
+    @Test
+    public void vector_invalid_element() throws IOException {
+        String output= testFile(testDir + "/vector/invalid_element.tis");
+        assertEquals("runtime error: Vector elements must be numbers.\n", output);
+    }
+
+    @Test
+    public void memoize_memoize() throws IOException {
+        String output= testFile(testDir + "/memoize/memoize.tis");
+        assertEquals("true\n71\n71 68 71\na-b\na-b\nb-a\nc-d\n3\n1 1 2 2\n4\n1\n2 1\nruntime error: Invalid maximum number of entries. Expected a positive integer.\n", output);
+    }
+
+    @Test
+    public void purity_classify() throws IOException {
+        String output= testFile(testDir + "/purity/classify.tis");
+        assertEquals("pure\npure\neffectful\npure\neffectful\neffectful 3\nlocal\neffectful\neffectful\neffectful\neffectful\neffectful\neffectful\npure pure\npure\neffectful pure\neffectful\npure\nlocal\neffectful\neffectful\neffectful\npure effectful\npure effectful local\neffectful\neffectful\neffectful\neffectful\n", output);
+    }
+
+    @Test
+    public void closure_reused_frames() throws IOException {
+        String output= testFile(testDir + "/closure/reused_frames.tis");
+        assertEquals("610\n55\n11\n21\n12\n30\ndone\ntrue\n14\n30\n", output);
+    }
+
+    @Test
+    public void input_read_all() throws IOException {
+        String output= testFile(testDir + "/input/read_all.tis", "1\n2\n3\n4\n");
+        assertEquals("1\n5\ntrue\nnil true\n", output);
+    }
+
+    @Test
+    public void input_read_lines() throws IOException {
+        String output= testFile(testDir + "/input/read_lines.tis", "first\nsecond line\nthird\n");
+        assertEquals("Name: first\nsecond line\n[third]\nnil\nnil\n[] true\n", output);
+    }
+
+    @Test
+    public void purity_fields() throws IOException {
+        String output= testFile(testDir + "/purity/fields.tis");
+        assertEquals("effectful\neffectful\neffectful\n", output);
+    }
+
 }